@@ -27,6 +27,10 @@ import picocli.CommandLine;
  * Subcommands:
  * - DownloadCommand: Downloads a list of stocks.
  * - ScrapeCommand: Scrapes stocks from aktienfinder.net.
+ * - DiffCommand: Writes the rating changes between two scrape results.
+ * - MergeCommand: Merges partial scrape results into one export.
+ * - PipelineCommand: Downloads the stock lists and scrapes the stocks in one run.
+ * - DaemonCommand: Keeps the browsers warm for later scrape invocations.
  * <p>
  * The application provides a command-line interface using the picocli library.
  * <p>
@@ -40,7 +44,15 @@ import picocli.CommandLine;
         name = "aktienfinder-scraper",
         mixinStandardHelpOptions = true,
         description = "Scrapes Aktienfinder-Scraper.",
-        subcommands = {DownloadCommand.class, ScrapeCommand.class, CommandLine.HelpCommand.class})
+        subcommands = {
+            DownloadCommand.class,
+            ScrapeCommand.class,
+            PipelineCommand.class,
+            DiffCommand.class,
+            MergeCommand.class,
+            DaemonCommand.class,
+            CommandLine.HelpCommand.class
+        })
 public class AktienFinderScraper implements Callable<Integer> {
 
     public static void main(String[] args) {
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.app;
+
+import de.bmarwell.aktienfinder.scraper.library.daemon.ScrapeDaemon;
+import de.bmarwell.aktienfinder.scraper.library.daemon.ScrapeDaemonClient;
+import de.bmarwell.aktienfinder.scraper.library.daemon.ScrapeResponse;
+import de.bmarwell.aktienfinder.scraper.library.scrape.ScrapeService;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+/**
+ * Runs a {@link ScrapeDaemon} in the foreground, keeping the browsers warm for later {@code scrape} invocations.
+ *
+ * <p>While the daemon runs, {@link ScrapeCommand} forwards ad-hoc lookups ({@code -i} without input files) to it
+ * instead of starting its own browsers.</p>
+ *
+ * <p>Options:
+ * <ul>
+ *     <li>{@code --socket}: The Unix domain socket to listen on. Defaults to a socket in {@code $XDG_RUNTIME_DIR}
+ *     or in a private per-user directory in the temporary directory.</li>
+ *     <li>{@code --stop}: Stops a running daemon instead of starting one.</li>
+ * </ul>
+ */
+@Command(name = "daemon", header = "Keeps the browsers warm and serves scrape requests on a local socket.")
+public class DaemonCommand implements Callable<Integer> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DaemonCommand.class);
+
+    @Option(
+            names = {"--socket"},
+            description = "Unix domain socket of the daemon (default: in $XDG_RUNTIME_DIR or a private temp directory)")
+    Path socketPath;
+
+    @Option(
+            names = {"--stop"},
+            description = "Stop a running daemon.")
+    boolean stop;
+
+    @Override
+    public Integer call() throws Exception {
+        Path socket = socketPath != null ? socketPath : ScrapeDaemon.defaultSocketPath();
+
+        if (stop) {
+            Optional<ScrapeDaemonClient> client = ScrapeDaemonClient.connect(socket);
+
+            if (client.isEmpty()) {
+                LOG.warn("No daemon listening on [{}].", socket);
+                return 1;
+            }
+
+            ScrapeResponse response = client.get().stop();
+            return response.successful() ? 0 : 1;
+        }
+
+        try (var scrapeService = new ScrapeService();
+                var daemon = new ScrapeDaemon(socket, scrapeService)) {
+            Runtime.getRuntime().addShutdownHook(new Thread(daemon::close, "daemon-shutdown"));
+            daemon.run();
+        }
+
+        return 0;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.app;
+
+import de.bmarwell.aktienfinder.scraper.library.export.ResultDiff;
+import de.bmarwell.aktienfinder.scraper.library.export.ResultSetReader;
+import de.bmarwell.aktienfinder.scraper.library.export.StockChange;
+import de.bmarwell.aktienfinder.scraper.library.export.StockChangeExportService;
+import de.bmarwell.aktienfinder.scraper.value.AktienfinderStock;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Callable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+/**
+ * Compares the results of two scrape runs and writes only the stocks whose ratings changed.
+ *
+ * <p>Options:
+ * <ul>
+ *     <li>{@code -p, --previous}: The previous results (xlsx, csv, ndjson or afs).</li>
+ *     <li>{@code -c, --current}: The current results (xlsx, csv, ndjson or afs).</li>
+ *     <li>{@code -o, --output}: The output file (csv, ndjson or xlsx) for the changes.</li>
+ * </ul>
+ */
+@Command(name = "diff", header = "Writes the rating changes between two scrape results.")
+public class DiffCommand implements Callable<Integer> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DiffCommand.class);
+
+    @Option(
+            names = {"-p", "--previous"},
+            description = "Previous results (xlsx, csv, ndjson or afs)",
+            required = true)
+    Path previousFile;
+
+    @Option(
+            names = {"-c", "--current"},
+            description = "Current results (xlsx, csv, ndjson or afs)",
+            required = true)
+    Path currentFile;
+
+    @Option(
+            names = {"-o", "--output"},
+            description = "Output file for the changes (csv, ndjson or xlsx)",
+            required = true)
+    Path outputFile;
+
+    @Override
+    public Integer call() throws Exception {
+        List<AktienfinderStock> previous = ResultSetReader.read(previousFile);
+        List<AktienfinderStock> current = ResultSetReader.read(currentFile);
+
+        List<StockChange> changes = ResultDiff.diff(previous, current);
+        LOG.info(
+                "[{}] of [{}] stocks changed compared to [{}] previous stocks.",
+                changes.size(),
+                current.size(),
+                previous.size());
+
+        new StockChangeExportService().export(changes, outputFile);
+
+        return 0;
+    }
+}
@@ -15,35 +15,57 @@
  */
 package de.bmarwell.aktienfinder.scraper.app;
 
+import de.bmarwell.aktienfinder.scraper.library.browser.BrowserPoolStatistics;
+import de.bmarwell.aktienfinder.scraper.library.caching.PoolMetrics;
 import de.bmarwell.aktienfinder.scraper.library.download.DownloadListService;
 import de.bmarwell.aktienfinder.scraper.library.download.StockDownloadOption;
 import de.bmarwell.aktienfinder.scraper.library.download.StockIndex;
+import de.bmarwell.aktienfinder.scraper.library.download.snapshot.IndexDiff;
+import de.bmarwell.aktienfinder.scraper.library.download.snapshot.IndexSnapshotStore;
+import de.bmarwell.aktienfinder.scraper.value.Isin;
 import de.bmarwell.aktienfinder.scraper.value.Stock;
 import jakarta.json.Json;
-import jakarta.json.JsonArrayBuilder;
-import jakarta.json.JsonObject;
-import jakarta.json.JsonWriter;
+import jakarta.json.stream.JsonGenerator;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
-import java.util.LinkedHashSet;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.Model.CommandSpec;
 import picocli.CommandLine.Option;
+import picocli.CommandLine.ParameterException;
+import picocli.CommandLine.Spec;
 
 /**
  * Command to download a list of stocks from predefined indexes and generate a JSON output file.
  * <p>
  * This command downloads stock data from several stock indexes and generates a JSON file with the details.
  * It makes use of the {@link DownloadListService} to perform the stock data retrieval.
+ * The stocks of each index are written as soon as that index was read, so a slow index does not delay
+ * the others and the full list is never held in memory.
+ * Stocks contained in several indexes are written only once, for the first index which completed.
  *
  * <p>
  * Options:
  * <ul>
  *   <li>{@code -o}, {@code --output}: Specifies the output file (in JSON format) where the downloaded stock data will be stored.</li>
+ *   <li>{@code -n}, {@code --results-per-source}: Stops reading an index once this many stocks were read.</li>
+ *   <li>{@code --snapshot-dir}: Keeps a snapshot of each index. An index is only crawled completely if its
+ *   first page changed or its snapshot is older than {@code --snapshot-max-age}.</li>
+ *   <li>{@code --diff-output}: Writes the members added to and removed from each index since the last snapshot.</li>
+ *   <li>{@code --stats-interval}, {@code --run-report}: Logs the progress per index periodically and writes
+ *   latencies and failures as JSON at the end.</li>
  * </ul>
  *
  * <p>
@@ -53,6 +75,8 @@ import picocli.CommandLine.Option;
  *   <li>Stock ISIN</li>
  *   <li>Stock index (if available)</li>
  * </ul>
+ * Additionally, the {@code indices} object maps each index to the ISINs of all its members. It is keyed by the
+ * same index name as the {@code index} field of the stocks.
  *
  * <p>
  * Exit Codes:
@@ -64,47 +88,161 @@ import picocli.CommandLine.Option;
 @Command(name = "download", header = "Downloads a list of stocks and generates a JSON output file.")
 public class DownloadCommand implements Callable<Integer> {
 
+    private static final Logger LOG = LoggerFactory.getLogger(DownloadCommand.class);
+
+    @Spec
+    CommandSpec spec;
+
     @Option(
             names = {"-o", "--output"},
             description = "Output file (json)")
     Path outputFile;
 
+    @Option(
+            names = {"-n", "--results-per-source"},
+            description = "Maximum number of stocks to read per index (default: ${DEFAULT-VALUE})",
+            defaultValue = "9999")
+    int resultsPerSource;
+
+    @Option(
+            names = {"--snapshot-dir"},
+            description = "Directory for index snapshots. If set, unchanged indices are not crawled again.")
+    Path snapshotDirectory;
+
+    @Option(
+            names = {"--snapshot-max-age"},
+            description = "Crawl an index completely if its snapshot is older than this (default: ${DEFAULT-VALUE})",
+            defaultValue = "P7D")
+    Duration snapshotMaxAge;
+
+    @Option(
+            names = {"--diff-output"},
+            description = "Output file (json) for added and removed index members. Requires --snapshot-dir.")
+    Path diffOutputFile;
+
+    @Option(
+            names = {"--stats-interval"},
+            description = "Log the progress this often, PT0S to disable (default: ${DEFAULT-VALUE})",
+            defaultValue = "PT1M")
+    Duration statsInterval;
+
+    @Option(
+            names = {"--run-report"},
+            description = "Output file (json) for progress, latencies and failures of this run.")
+    Path runReportFile;
+
     @Override
     public Integer call() throws Exception {
-        Set<Stock> stockSet = new LinkedHashSet<>();
+        if (diffOutputFile != null && snapshotDirectory == null) {
+            throw new ParameterException(spec.commandLine(), "--diff-output requires --snapshot-dir.");
+        }
+
+        Set<Isin> writtenIsins = new HashSet<>();
+        Map<StockIndex, List<String>> indexMembers = new LinkedHashMap<>();
 
-        try (DownloadListService downloadListService = new DownloadListService()) {
+        IndexSnapshotStore snapshotStore =
+                snapshotDirectory == null ? null : new IndexSnapshotStore(snapshotDirectory, snapshotMaxAge);
+
+        try (DownloadListService downloadListService = new DownloadListService(new PoolMetrics(), snapshotStore);
+                OutputStream outputStream = Files.newOutputStream(
+                        outputFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+                JsonGenerator jsonGenerator = Json.createGenerator(outputStream);
+                var runReporter =
+                        new RunReporter("download", downloadListService::getRunStatistics, statsInterval)) {
             var indexes = List.of(StockIndex.values());
-            StockDownloadOption stockDownloadOption = new StockDownloadOption(indexes, 9999);
-            List<Stock> stocks = downloadListService.downloadStocks(stockDownloadOption);
+            StockDownloadOption stockDownloadOption = new StockDownloadOption(indexes, resultsPerSource);
+
+            jsonGenerator.writeStartObject();
+            jsonGenerator.writeStartArray("results");
+
+            downloadListService.downloadStocks(stockDownloadOption, (stockIndex, stocks) -> {
+                List<String> members = indexMembers.computeIfAbsent(stockIndex, key -> new ArrayList<>());
+
+                for (Stock stock : stocks) {
+                    members.add(stock.isin().value());
 
-            stockSet.addAll(stocks);
+                    if (!writtenIsins.add(stock.isin())) {
+                        // already written for another index, only recorded as index member.
+                        continue;
+                    }
+
+                    jsonGenerator
+                            .writeStartObject()
+                            .write("name", stock.name())
+                            .write("isin", stock.isin().value())
+                            .write("index", stock.index().orElse(""))
+                            .writeEnd();
+                }
+
+                jsonGenerator.flush();
+                LOG.info("Wrote index [{}], [{}] stocks in total.", stockIndex, writtenIsins.size());
+            });
+
+            jsonGenerator.writeEnd();
+
+            jsonGenerator.writeStartObject("indices");
+            for (Map.Entry<StockIndex, List<String>> indexMember : indexMembers.entrySet()) {
+                jsonGenerator.writeStartArray(indexMember.getKey().getStockRetriever().getName());
+                indexMember.getValue().forEach(jsonGenerator::write);
+                jsonGenerator.writeEnd();
+            }
+            jsonGenerator.writeEnd();
+
+            jsonGenerator.writeEnd();
+
+            if (runReportFile != null) {
+                runReporter.writeReport(runReportFile);
+            }
+
+            for (BrowserPoolStatistics statistics : downloadListService.getBrowserPoolStatistics()) {
+                LOG.info("Browser pool: {}", statistics.toSummary());
+            }
+
+            if (diffOutputFile != null) {
+                writeDiffs(downloadListService.getIndexDiffs());
+            }
         }
 
-        if (stockSet.isEmpty()) {
+        if (writtenIsins.isEmpty()) {
             return 1;
         }
 
+        return 0;
+    }
+
+    private void writeDiffs(List<IndexDiff> indexDiffs) throws IOException {
         try (OutputStream outputStream = Files.newOutputStream(
-                        outputFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-                JsonWriter jsonWriter = Json.createWriter(outputStream)) {
-            JsonArrayBuilder results = Json.createArrayBuilder();
-
-            for (Stock stock : stockSet) {
-                JsonObject result = Json.createObjectBuilder()
-                        .add("name", Json.createValue(stock.name()))
-                        .add("isin", Json.createValue(stock.isin()))
-                        .add("index", Json.createValue(stock.index().orElse("")))
-                        .build();
-                results.add(result);
+                        diffOutputFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+                JsonGenerator jsonGenerator = Json.createGenerator(outputStream)) {
+            jsonGenerator.writeStartObject();
+            jsonGenerator.writeStartArray("diffs");
+
+            for (IndexDiff indexDiff : indexDiffs) {
+                jsonGenerator.writeStartObject();
+                jsonGenerator.write("index", indexDiff.stockIndex().name());
+                indexDiff.previous().ifPresent(previous -> jsonGenerator.write("previous", previous.toString()));
+                jsonGenerator.write("current", indexDiff.current().toString());
+                writeStocks(jsonGenerator, "added", indexDiff.added());
+                writeStocks(jsonGenerator, "removed", indexDiff.removed());
+                jsonGenerator.writeEnd();
             }
 
-            JsonObject result =
-                    Json.createObjectBuilder().add("results", results.build()).build();
+            jsonGenerator.writeEnd();
+            jsonGenerator.writeEnd();
+        }
+    }
 
-            jsonWriter.writeObject(result);
+    private static void writeStocks(JsonGenerator jsonGenerator, String name, List<Stock> stocks) {
+        jsonGenerator.writeStartArray(name);
+
+        for (Stock stock : stocks) {
+            jsonGenerator
+                    .writeStartObject()
+                    .write("name", stock.name())
+                    .write("isin", stock.isin().value())
+                    .writeEnd();
         }
 
-        return 0;
+        jsonGenerator.writeEnd();
     }
 }
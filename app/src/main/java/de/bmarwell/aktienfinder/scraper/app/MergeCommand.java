@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.app;
+
+import de.bmarwell.aktienfinder.scraper.library.export.ExportFormat;
+import de.bmarwell.aktienfinder.scraper.library.export.ResultSetReader;
+import de.bmarwell.aktienfinder.scraper.library.scrape.BoundedHandoff;
+import de.bmarwell.aktienfinder.scraper.value.AktienfinderStock;
+import de.bmarwell.aktienfinder.scraper.value.Isin;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+/**
+ * Combines the partial results of several {@code scrape --shard k/n} runs into one export.
+ *
+ * <p>The input files are read one after another while the output is written, so they are never held in memory
+ * completely (except for XLSX input, which has to be loaded per file). A stock contained in several inputs is
+ * written once, taken from the first file listing it.</p>
+ *
+ * <p>Options:
+ * <ul>
+ *     <li>{@code -o, --output}: The merged output file.</li>
+ *     <li>{@code --format}: The output format. If omitted, it is derived from the output file name.</li>
+ *     <li>{@code --sheet-per-index}: Splits the XLSX output into one sheet per index plus a summary sheet.</li>
+ *     <li>The partial result files (xlsx, csv, ndjson or afs), in any combination of formats.</li>
+ * </ul>
+ */
+@Command(name = "merge", header = "Merges partial scrape results into one export.")
+public class MergeCommand implements Callable<Integer> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MergeCommand.class);
+
+    private static final int QUEUE_SIZE = 1_000;
+
+    @Option(
+            names = {"-o", "--output"},
+            description = "Output file (xlsx, csv, ndjson or afs)",
+            required = true)
+    Path outputFile;
+
+    @Option(
+            names = {"--format"},
+            description = "Output format, one of ${COMPLETION-CANDIDATES}. Default: derived from the output file name.")
+    ExportFormat exportFormat;
+
+    @Option(
+            names = {"--sheet-per-index"},
+            description = "XLSX only: write one sheet per index plus a summary sheet.")
+    boolean sheetPerIndex;
+
+    @Parameters(description = "Partial results (xlsx, csv, ndjson or afs)", arity = "1..*")
+    List<Path> inputFiles;
+
+    @Override
+    public Integer call() throws Exception {
+        BoundedHandoff<AktienfinderStock> stocks = new BoundedHandoff<>(QUEUE_SIZE);
+        AtomicInteger readStocks = new AtomicInteger();
+        AtomicInteger failedFiles = new AtomicInteger();
+        Set<Isin> mergedIsins = new HashSet<>();
+
+        Thread readThread = Thread.ofPlatform().name("merge-read").start(() -> {
+            try {
+                for (Path inputFile : inputFiles) {
+                    read(inputFile, stocks, readStocks, mergedIsins, failedFiles);
+                }
+            } catch (CancellationException cancelled) {
+                LOG.warn("Reading the partial results was cancelled.");
+            } finally {
+                try {
+                    stocks.complete();
+                } catch (InterruptedException interruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        try {
+            ExportFormat format = exportFormat != null
+                    ? exportFormat
+                    : ExportFormat.fromFileName(outputFile).orElse(ExportFormat.XLSX);
+            format.createExportService(sheetPerIndex).export(stocks, outputFile);
+        } finally {
+            // release the reader if the export failed.
+            stocks.cancel();
+            readThread.join();
+        }
+
+        LOG.info(
+                "Merged [{}] stocks from [{}] files into [{}] distinct stocks in [{}].",
+                readStocks.get(),
+                inputFiles.size(),
+                mergedIsins.size(),
+                outputFile);
+
+        if (failedFiles.get() > 0) {
+            return 1;
+        }
+
+        return 0;
+    }
+
+    private static void read(
+            Path inputFile,
+            BoundedHandoff<AktienfinderStock> stocks,
+            AtomicInteger readStocks,
+            Set<Isin> mergedIsins,
+            AtomicInteger failedFiles) {
+        try {
+            ResultSetReader.forEach(inputFile, afStock -> {
+                readStocks.incrementAndGet();
+
+                if (!mergedIsins.add(afStock.stock().isin())) {
+                    // already merged from an earlier file.
+                    return;
+                }
+
+                try {
+                    stocks.put(afStock);
+                } catch (InterruptedException interruptedException) {
+                    Thread.currentThread().interrupt();
+                    throw new CancellationException("interrupted while merging " + inputFile);
+                }
+            });
+        } catch (CancellationException cancelled) {
+            throw cancelled;
+        } catch (IOException | RuntimeException readException) {
+            failedFiles.incrementAndGet();
+            LOG.error("Unable to read partial results [{}].", inputFile, readException);
+        }
+    }
+}
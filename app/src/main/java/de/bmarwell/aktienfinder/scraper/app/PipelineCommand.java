@@ -0,0 +1,264 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.app;
+
+import de.bmarwell.aktienfinder.scraper.library.browser.BrowserPoolStatistics;
+import de.bmarwell.aktienfinder.scraper.library.caching.PoolMetrics;
+import de.bmarwell.aktienfinder.scraper.library.download.DownloadListService;
+import de.bmarwell.aktienfinder.scraper.library.download.MergedStock;
+import de.bmarwell.aktienfinder.scraper.library.download.StockDownloadOption;
+import de.bmarwell.aktienfinder.scraper.library.download.StockIndex;
+import de.bmarwell.aktienfinder.scraper.library.download.StockMerger;
+import de.bmarwell.aktienfinder.scraper.library.download.snapshot.IndexSnapshotStore;
+import de.bmarwell.aktienfinder.scraper.library.export.ExportFormat;
+import de.bmarwell.aktienfinder.scraper.library.export.ExportService;
+import de.bmarwell.aktienfinder.scraper.library.scrape.BoundedHandoff;
+import de.bmarwell.aktienfinder.scraper.library.scrape.ScrapeService;
+import de.bmarwell.aktienfinder.scraper.value.AktienfinderStock;
+import de.bmarwell.aktienfinder.scraper.value.Isin;
+import de.bmarwell.aktienfinder.scraper.value.Stock;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.StreamSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+/**
+ * Downloads the stock lists and scrapes the stocks in one run, without an intermediate JSON file.
+ *
+ * <p>The three stages run concurrently and are connected by {@link BoundedHandoff}s:
+ * <ol>
+ *     <li>The download thread hands over the stocks of each index as soon as that index was read.
+ *     Stocks contained in several indexes are handed over only once, for the first index which completed.
+ *     Their other memberships are recorded and added to the result before it is exported.</li>
+ *     <li>The scrape thread feeds them into {@link ScrapeService#scrapeAll(java.util.Iterator,
+ *     java.util.function.Consumer)}.</li>
+ *     <li>The calling thread exports the results while they arrive.</li>
+ * </ol>
+ * Scraping therefore starts with the first index instead of waiting for the slowest one.
+ * CSV, NDJSON and binary exports are written while scraping, with the memberships known at that time; an index
+ * completing later is not added to stocks already written. XLSX with {@code --sheet-per-index} waits for the last
+ * result, so every stock appears on the sheet of each of its indices.
+ *
+ * <p>Options:
+ * <ul>
+ *     <li>{@code -o, --output}: The output file, see {@link ScrapeCommand}.</li>
+ *     <li>{@code --format}: The output format. If omitted, it is derived from the output file name.</li>
+ *     <li>{@code --sheet-per-index}: Splits the XLSX output into one sheet per index plus a summary sheet.</li>
+ *     <li>{@code -n, --results-per-source}, {@code --snapshot-dir}, {@code --snapshot-max-age}: see
+ *     {@link DownloadCommand}.</li>
+ *     <li>{@code --queue-size}: Number of stocks and results buffered between two stages.</li>
+ * </ul>
+ *
+ * <p>Exit Codes:
+ * <ul>
+ *     <li>{@code 0}: At least one stock was scraped and exported.</li>
+ *     <li>{@code 1}: No stocks were downloaded or scraped, or a stage failed.</li>
+ * </ul>
+ */
+@Command(name = "pipeline", header = "Downloads the stock lists and scrapes the stocks in one run.")
+public class PipelineCommand implements Callable<Integer> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PipelineCommand.class);
+
+    @Option(
+            names = {"-o", "--output"},
+            description = "Output file (xlsx, csv, ndjson or afs)",
+            required = true)
+    Path outputFile;
+
+    @Option(
+            names = {"--format"},
+            description = "Output format, one of ${COMPLETION-CANDIDATES}. Default: derived from the output file name.")
+    ExportFormat exportFormat;
+
+    @Option(
+            names = {"--sheet-per-index"},
+            description = "XLSX only: write one sheet per index plus a summary sheet.")
+    boolean sheetPerIndex;
+
+    @Option(
+            names = {"-n", "--results-per-source"},
+            description = "Maximum number of stocks to read per index (default: ${DEFAULT-VALUE})",
+            defaultValue = "9999")
+    int resultsPerSource;
+
+    @Option(
+            names = {"--snapshot-dir"},
+            description = "Directory for index snapshots. If set, unchanged indices are not crawled again.")
+    Path snapshotDirectory;
+
+    @Option(
+            names = {"--snapshot-max-age"},
+            description = "Crawl an index completely if its snapshot is older than this (default: ${DEFAULT-VALUE})",
+            defaultValue = "P7D")
+    Duration snapshotMaxAge;
+
+    @Option(
+            names = {"--queue-size"},
+            description = "Stocks and results buffered between the stages (default: ${DEFAULT-VALUE})",
+            defaultValue = "500")
+    int queueSize;
+
+    @Override
+    public Integer call() throws Exception {
+        BoundedHandoff<Stock> stocks = new BoundedHandoff<>(queueSize);
+        BoundedHandoff<AktienfinderStock> ratings = new BoundedHandoff<>(queueSize);
+        AtomicInteger failedStages = new AtomicInteger();
+        AtomicInteger scrapedStocks = new AtomicInteger();
+        Map<Isin, MergedStock> indexMemberships = new ConcurrentHashMap<>();
+
+        IndexSnapshotStore snapshotStore =
+                snapshotDirectory == null ? null : new IndexSnapshotStore(snapshotDirectory, snapshotMaxAge);
+
+        try (DownloadListService downloadListService = new DownloadListService(new PoolMetrics(), snapshotStore);
+                ScrapeService scrapeService = new ScrapeService()) {
+            Thread downloadThread = Thread.ofPlatform()
+                    .name("pipeline-download")
+                    .start(() -> runStage(
+                            "download",
+                            stocks,
+                            failedStages,
+                            () -> download(downloadListService, stocks, indexMemberships)));
+            Thread scrapeThread = Thread.ofPlatform()
+                    .name("pipeline-scrape")
+                    .start(() -> runStage("scrape", ratings, failedStages, () -> scrapeService.scrapeAll(
+                            stocks.iterator(), rating -> {
+                                handOver(ratings, rating);
+                                scrapedStocks.incrementAndGet();
+                            })));
+
+            try {
+                ExportFormat format = exportFormat != null
+                        ? exportFormat
+                        : ExportFormat.fromFileName(outputFile).orElse(ExportFormat.XLSX);
+                LOG.info("Writing stocks as [{}] to [{}] while scraping.", format, outputFile);
+                boolean groupedByIndex = format == ExportFormat.XLSX && sheetPerIndex;
+                ExportService exportService = format.createExportService(sheetPerIndex);
+                exportService.export(withAllIndices(ratings, indexMemberships, groupedByIndex), outputFile);
+            } finally {
+                // release the other stages if the export failed.
+                ratings.cancel();
+                stocks.cancel();
+                downloadThread.join();
+                scrapeThread.join();
+            }
+
+            LOG.info("Exported [{}] stocks to [{}].", scrapedStocks.get(), outputFile);
+
+            for (BrowserPoolStatistics statistics : downloadListService.getBrowserPoolStatistics()) {
+                LOG.info("Browser pool (download): {}", statistics.toSummary());
+            }
+            for (BrowserPoolStatistics statistics : scrapeService.getBrowserPoolStatistics()) {
+                LOG.info("Browser pool (scrape): {}", statistics.toSummary());
+            }
+        }
+
+        if (failedStages.get() > 0 || scrapedStocks.get() == 0) {
+            return 1;
+        }
+
+        return 0;
+    }
+
+    private void download(
+            DownloadListService downloadListService,
+            BoundedHandoff<Stock> stocks,
+            Map<Isin, MergedStock> indexMemberships) {
+        Set<Isin> handedOverIsins = new HashSet<>();
+        StockDownloadOption stockDownloadOption =
+                new StockDownloadOption(List.of(StockIndex.values()), resultsPerSource);
+
+        downloadListService.downloadStocks(stockDownloadOption, (stockIndex, indexStocks) -> {
+            int before = handedOverIsins.size();
+
+            for (Stock stock : indexStocks) {
+                indexMemberships.merge(stock.isin(), MergedStock.of(stock), MergedStock::merge);
+
+                if (!handedOverIsins.add(stock.isin())) {
+                    // already handed over for another index.
+                    continue;
+                }
+
+                handOver(stocks, stock);
+            }
+
+            LOG.info(
+                    "Index [{}] read, [{}] new of [{}] stocks queued for scraping.",
+                    stockIndex,
+                    handedOverIsins.size() - before,
+                    indexStocks.size());
+        });
+    }
+
+    /**
+     * Adds the memberships recorded by the download stage to each result.
+     *
+     * @param waitForAll whether to wait for the last result first, so all indices have been read.
+     */
+    private static Iterable<AktienfinderStock> withAllIndices(
+            BoundedHandoff<AktienfinderStock> ratings, Map<Isin, MergedStock> indexMemberships, boolean waitForAll) {
+        if (waitForAll) {
+            List<AktienfinderStock> allRatings = new ArrayList<>();
+            ratings.forEach(allRatings::add);
+
+            return allRatings.stream()
+                    .map(rating -> StockMerger.withAllIndices(rating, indexMemberships))
+                    .toList();
+        }
+
+        return () -> StreamSupport.stream(ratings.spliterator(), false)
+                .map(rating -> StockMerger.withAllIndices(rating, indexMemberships))
+                .iterator();
+    }
+
+    private static <T> void handOver(BoundedHandoff<T> handoff, T element) {
+        try {
+            handoff.put(element);
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("interrupted while handing over " + element);
+        }
+    }
+
+    private static void runStage(String name, BoundedHandoff<?> output, AtomicInteger failedStages, Runnable stage) {
+        try {
+            stage.run();
+        } catch (CancellationException cancelled) {
+            LOG.warn("Stage [{}] was cancelled.", name);
+        } catch (RuntimeException stageException) {
+            failedStages.incrementAndGet();
+            LOG.error("Stage [{}] failed.", name, stageException);
+        } finally {
+            try {
+                output.complete();
+            } catch (InterruptedException interruptedException) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.app;
+
+import de.bmarwell.aktienfinder.scraper.library.caching.PoolStatistics;
+import de.bmarwell.aktienfinder.scraper.library.scrape.RunPhase;
+import de.bmarwell.aktienfinder.scraper.library.scrape.RunStatisticsSnapshot;
+import jakarta.json.Json;
+import jakarta.json.stream.JsonGenerator;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Logs the progress of a long-running command periodically and writes a machine-readable report at the end.
+ */
+class RunReporter implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RunReporter.class);
+
+    private final String runName;
+
+    private final Supplier<RunStatisticsSnapshot> statistics;
+
+    private final Instant startedAt = Instant.now();
+
+    private final ScheduledExecutorService scheduler;
+
+    /**
+     * Starts logging the statistics.
+     *
+     * @param runName the name of the command, used as log prefix and in the report.
+     * @param statistics reads the current statistics.
+     * @param interval how often to log the progress; zero or negative disables periodic logging.
+     */
+    RunReporter(String runName, Supplier<RunStatisticsSnapshot> statistics, Duration interval) {
+        this.runName = runName;
+        this.statistics = statistics;
+
+        if (interval.isZero() || interval.isNegative()) {
+            this.scheduler = null;
+            return;
+        }
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor((Runnable runnable) -> {
+            Thread thread = new Thread(runnable, "run-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleAtFixedRate(
+                this::logProgress, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    void logProgress() {
+        LOG.info("[{}] {}", runName, statistics.get().toSummary());
+    }
+
+    /**
+     * Writes the final statistics as JSON.
+     *
+     * @param reportFile the report file, replaced if it exists.
+     */
+    void writeReport(Path reportFile) {
+        RunStatisticsSnapshot snapshot = statistics.get();
+
+        try (OutputStream outputStream = Files.newOutputStream(
+                        reportFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+                JsonGenerator jsonGenerator = Json.createGenerator(outputStream)) {
+            jsonGenerator.writeStartObject();
+            jsonGenerator.write("run", runName);
+            jsonGenerator.write("startedAt", startedAt.toString());
+            jsonGenerator.write("elapsedMillis", snapshot.elapsed().toMillis());
+            jsonGenerator.write("submitted", snapshot.submitted());
+            jsonGenerator.write("succeeded", snapshot.succeeded());
+            jsonGenerator.write("failed", snapshot.failed());
+            jsonGenerator.write("perMinute", snapshot.perMinute());
+
+            jsonGenerator.writeStartObject("failuresByCause");
+            snapshot.failuresByCause().forEach((cause, count) -> jsonGenerator.write(cause, count.longValue()));
+            jsonGenerator.writeEnd();
+
+            jsonGenerator.writeStartObject("phases");
+            for (RunPhase phase : RunPhase.values()) {
+                RunStatisticsSnapshot.PhaseLatency latency = snapshot.phaseLatencies().get(phase);
+
+                if (latency == null || latency.count() == 0L) {
+                    continue;
+                }
+
+                jsonGenerator.writeStartObject(phase.name());
+                jsonGenerator.write("count", latency.count());
+                jsonGenerator.write("meanMillis", latency.mean().toMillis());
+                jsonGenerator.write("p50Millis", latency.p50().toMillis());
+                jsonGenerator.write("p95Millis", latency.p95().toMillis());
+                jsonGenerator.write("maxMillis", latency.max().toMillis());
+                jsonGenerator.writeEnd();
+            }
+            jsonGenerator.writeEnd();
+
+            PoolStatistics pool = snapshot.poolStatistics();
+            jsonGenerator.writeStartObject("pool");
+            jsonGenerator.write("capacity", snapshot.poolCapacity());
+            jsonGenerator.write("created", pool.created());
+            jsonGenerator.write("acquired", pool.acquired());
+            jsonGenerator.write("waitTimeouts", pool.timeouts());
+            jsonGenerator.write("waitMeanMillis", pool.waitMean().toMillis());
+            jsonGenerator.write("waitMaxMillis", pool.waitMax().toMillis());
+            jsonGenerator.writeEnd();
+
+            jsonGenerator.writeEnd();
+        } catch (IOException ioException) {
+            LOG.error("Unable to write run report [{}].", reportFile, ioException);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+
+        logProgress();
+    }
+}
@@ -15,27 +15,54 @@
  */
 package de.bmarwell.aktienfinder.scraper.app;
 
+import de.bmarwell.aktienfinder.scraper.library.browser.BrowserPoolStatistics;
+import de.bmarwell.aktienfinder.scraper.library.daemon.ScrapeDaemon;
+import de.bmarwell.aktienfinder.scraper.library.daemon.ScrapeDaemonClient;
+import de.bmarwell.aktienfinder.scraper.library.daemon.ScrapeRequest;
+import de.bmarwell.aktienfinder.scraper.library.daemon.ScrapeResponse;
+import de.bmarwell.aktienfinder.scraper.library.download.MergedStock;
+import de.bmarwell.aktienfinder.scraper.library.download.StockJsonReader;
+import de.bmarwell.aktienfinder.scraper.library.download.StockMerger;
+import de.bmarwell.aktienfinder.scraper.library.export.ExportFormat;
+import de.bmarwell.aktienfinder.scraper.library.export.ExportService;
 import de.bmarwell.aktienfinder.scraper.library.export.MsExcelExportService;
+import de.bmarwell.aktienfinder.scraper.library.export.ResultDiff;
+import de.bmarwell.aktienfinder.scraper.library.export.ResultSetReader;
+import de.bmarwell.aktienfinder.scraper.library.export.ScrapeResultStore;
+import de.bmarwell.aktienfinder.scraper.library.export.StockChange;
+import de.bmarwell.aktienfinder.scraper.library.export.StockChangeExportService;
+import de.bmarwell.aktienfinder.scraper.library.scrape.RunPhase;
 import de.bmarwell.aktienfinder.scraper.library.scrape.ScrapeService;
+import de.bmarwell.aktienfinder.scraper.library.scrape.Shard;
 import de.bmarwell.aktienfinder.scraper.value.AktienfinderStock;
+import de.bmarwell.aktienfinder.scraper.value.Isin;
 import de.bmarwell.aktienfinder.scraper.value.Stock;
-import jakarta.json.Json;
-import jakarta.json.JsonArray;
-import jakarta.json.JsonObject;
-import jakarta.json.JsonValue;
-import java.io.InputStream;
-import java.nio.file.Files;
+import java.io.IOException;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.concurrent.Callable;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import picocli.CommandLine.Command;
+import picocli.CommandLine.ITypeConverter;
+import picocli.CommandLine.Model.CommandSpec;
 import picocli.CommandLine.Option;
+import picocli.CommandLine.ParameterException;
+import picocli.CommandLine.Spec;
+import picocli.CommandLine.TypeConversionException;
 
 /**
  * This class represents a command-line utility designed to scrape stock information from the
@@ -50,23 +77,45 @@ import picocli.CommandLine.Option;
  * <p>Options:
  * <ul>
  *     <li>{@code -i, --stocks}: Specifies input stock ISINs with a comma-separated list.</li>
- *     <li>{@code -f, --input-file}: Specifies the input file containing stock data in JSON format.</li>
+ *     <li>{@code -f, --input-file}: Specifies the input file containing stock data in JSON format. May be given
+ *     several times, the files are read one after another.</li>
  *     <li>{@code -o, --output}: Specifies the output file where the scraped stock data will be
- *     exported in an XLSX format.</li>
+ *     exported.</li>
+ *     <li>{@code --format}: The output format (XLSX, CSV, NDJSON or BINARY). If omitted, the format is derived
+ *     from the extension of the output file, falling back to XLSX.</li>
+ *     <li>{@code --sheet-per-index}: Splits the XLSX output into one sheet per index plus a summary sheet.</li>
+ *     <li>{@code --diff-against}, {@code --diff-output}: Additionally writes only the stocks whose ratings
+ *     changed compared to a previous result file, see {@link DiffCommand}. Stocks without a result in this run,
+ *     e.g. failed ones, are left out instead of being reported as removed.</li>
+ *     <li>{@code --stats-interval}, {@code --run-report}: Logs throughput, ETA, phase latencies and failures
+ *     periodically and writes them as JSON at the end.</li>
+ *     <li>{@code --result-store}, {@code --max-age}: Keeps the latest result per ISIN in a local file and reuses
+ *     results younger than the maximum age instead of scraping them again, see {@link ScrapeResultStore}.</li>
+ *     <li>{@code --shard k/n}: Only scrapes the stocks of shard {@code k} of {@code n}, see {@link Shard}. Combine
+ *     the partial results with {@link MergeCommand}.</li>
+ *     <li>{@code --socket}, {@code --no-daemon}: Lookups of ISINs given with {@code -i} are forwarded to a
+ *     running {@link DaemonCommand} unless disabled.</li>
  * </ul>
  *
  * <p>The {@code call} method:
  * <ol>
- *     <li>Loads stock data from the provided ISINs.</li>
- *     <li>Loads additional stock data from the provided input file if available.</li>
- *     <li>Combines the stock data from both sources into a single set.</li>
- *     <li>Uses {@link ScrapeService} to scrape detailed stock information.</li>
- *     <li>Exports the scraped data to the specified output file using {@link MsExcelExportService}.</li>
+ *     <li>Reads the input files lazily with a {@link StockJsonReader}, followed by the provided ISINs.</li>
+ *     <li>Skips every ISIN which was already read, keeping the first entry.</li>
+ *     <li>Uses {@link ScrapeService} to scrape detailed stock information. Scraping starts as soon as the first
+ *     stock was read, and the input is only read as fast as the stocks are scraped.</li>
+ *     <li>Adds all index memberships listed in the input files to the results.</li>
+ *     <li>Exports the scraped data to the specified output file using {@link MsExcelExportService}
+ *     or one of the other {@link ExportFormat}s.</li>
  * </ol>
  */
 @Command(name = "scrape", header = "Scrapes stocks from aktienfinder.net")
 public class ScrapeCommand implements Callable<Integer> {
 
+    private static final Logger LOG = LoggerFactory.getLogger(ScrapeCommand.class);
+
+    @Spec
+    CommandSpec spec;
+
     @Option(
             names = {"-i", "--stocks"},
             description = "input stock isins",
@@ -75,53 +124,231 @@ public class ScrapeCommand implements Callable<Integer> {
 
     @Option(
             names = {"-f", "--input-file"},
-            description = "input file")
-    Path inputFile;
+            description = "input file(s) as written by the download command, read one after another")
+    List<Path> inputFiles = new ArrayList<>();
 
     @Option(
             names = {"-o", "--output"},
-            description = "Output file (xlsx)")
+            description = "Output file (xlsx, csv, ndjson or afs)",
+            required = true)
     Path outputFile;
 
+    @Option(
+            names = {"--format"},
+            description = "Output format, one of ${COMPLETION-CANDIDATES}. Default: derived from the output file name.")
+    ExportFormat exportFormat;
+
+    @Option(
+            names = {"--sheet-per-index"},
+            description = "XLSX only: write one sheet per index plus a summary sheet.")
+    boolean sheetPerIndex;
+
+    @Option(
+            names = {"--diff-against"},
+            description = "Previous results (xlsx, csv, ndjson or afs) to compare the new results with. "
+                    + "Requires --diff-output.")
+    Path previousResultFile;
+
+    @Option(
+            names = {"--diff-output"},
+            description = "Output file (csv, ndjson or xlsx) for the changes. Requires --diff-against.")
+    Path diffOutputFile;
+
+    @Option(
+            names = {"--shard"},
+            description = "Only scrape shard k of n (e.g. 2/4), selected by a stable hash of the ISIN.",
+            converter = ShardConverter.class)
+    Shard shard;
+
+    @Option(
+            names = {"--stats-interval"},
+            description = "Log the progress this often, PT0S to disable (default: ${DEFAULT-VALUE})",
+            defaultValue = "PT1M")
+    Duration statsInterval;
+
+    @Option(
+            names = {"--run-report"},
+            description = "Output file (json) for throughput, latencies and failures of this run.")
+    Path runReportFile;
+
+    @Option(
+            names = {"--result-store"},
+            description = "Local store (ndjson) of the latest result per ISIN, updated with every scraped stock.")
+    Path resultStoreFile;
+
+    @Option(
+            names = {"--max-age"},
+            description = "Reuse results from --result-store scraped within this duration (e.g. PT12H) "
+                    + "instead of scraping again.")
+    Duration maxAge;
+
+    @Option(
+            names = {"--socket"},
+            description = "Unix domain socket of a running daemon "
+                    + "(default: in $XDG_RUNTIME_DIR or a private temp directory)")
+    Path daemonSocket;
+
+    @Option(
+            names = {"--no-daemon"},
+            description = "Always scrape in this process, even if a daemon is running.")
+    boolean noDaemon;
+
     @Override
     public Integer call() throws Exception {
-        Set<Stock> stocksFromIsinInput = stockIsins.stream()
-                .map(isin -> new Stock("", isin, Optional.empty()))
-                .collect(Collectors.toSet());
-        Set<Stock> stocksFromFileInput = new HashSet<>();
-
-        if (inputFile != null) {
-            try (InputStream fileInputStream = Files.newInputStream(inputFile, StandardOpenOption.READ);
-                    var json = Json.createReader(fileInputStream)) {
-                JsonObject root = json.readObject();
-                JsonArray results = root.getJsonArray("results");
-                for (JsonValue result : results) {
-                    if (!JsonValue.ValueType.OBJECT.equals(result.getValueType())) {
-                        continue;
-                    }
-
-                    JsonObject stockObject = result.asJsonObject();
-
-                    Stock stock = new Stock(
-                            stockObject.getString("name"),
-                            stockObject.getString("isin"),
-                            Optional.ofNullable(stockObject.getString("index")));
-
-                    stocksFromFileInput.add(stock);
+        if (maxAge != null && resultStoreFile == null) {
+            throw new ParameterException(spec.commandLine(), "--max-age requires --result-store.");
+        }
+
+        if ((previousResultFile == null) != (diffOutputFile == null)) {
+            throw new ParameterException(spec.commandLine(), "--diff-against and --diff-output require each other.");
+        }
+
+        ExportFormat format = exportFormat != null
+                ? exportFormat
+                : ExportFormat.fromFileName(outputFile).orElse(ExportFormat.XLSX);
+
+        if (isAdHocLookup()) {
+            Optional<ScrapeDaemonClient> daemon =
+                    ScrapeDaemonClient.connect(daemonSocket != null ? daemonSocket : ScrapeDaemon.defaultSocketPath());
+
+            if (daemon.isPresent()) {
+                return scrapeWithDaemon(daemon.get(), format);
+            }
+        }
+
+        Stream<Stock> stocksFromIsinInput = stockIsins.stream()
+                .map(isin -> new Stock("", Isin.fromString(isin.strip()), Optional.empty()));
+
+        // the same security may be listed in several indices, but it only needs to be scraped once.
+        Set<Isin> seenIsins = new HashSet<>();
+
+        Instant startedAt = Instant.now();
+        List<AktienfinderStock> storedRatings = new ArrayList<>();
+        List<AktienfinderStock> scrapedRatings = new ArrayList<>();
+
+        try (var resultStore = resultStoreFile == null ? null : ScrapeResultStore.open(resultStoreFile);
+                var stocksFromFileInput = new StockJsonReader(inputFiles);
+                Stream<Stock> fileStocks = StreamSupport.stream(
+                        Spliterators.spliteratorUnknownSize(stocksFromFileInput, Spliterator.ORDERED), false);
+                var scrapeService = new ScrapeService();
+                var runReporter = new RunReporter("scrape", scrapeService::getRunStatistics, statsInterval)) {
+            Iterator<Stock> allStocks = Stream.concat(fileStocks, stocksFromIsinInput)
+                    .filter(stock -> shard == null || shard.contains(stock.isin()))
+                    .filter(stock -> seenIsins.add(stock.isin()))
+                    .filter(stock -> {
+                        Optional<AktienfinderStock> stored = fromStore(resultStore, stock, startedAt);
+                        stored.ifPresent(storedRatings::add);
+                        return stored.isEmpty();
+                    })
+                    .iterator();
+            scrapeService.scrapeAll(allStocks, afStock -> {
+                scrapedRatings.add(afStock);
+
+                if (resultStore != null) {
+                    resultStore.put(afStock, Instant.now());
                 }
+            });
+            LOG.info(
+                    "Scraped [{}] and reused [{}] stored results of [{}] distinct stocks in shard [{}].",
+                    scrapedRatings.size(),
+                    storedRatings.size(),
+                    seenIsins.size(),
+                    shard == null ? "all" : shard);
+
+            // the indices objects follow the results, so the memberships are complete once all stocks were read.
+            Map<Isin, MergedStock> indexMemberships = stocksFromFileInput.getIndexMemberships();
+            List<AktienfinderStock> ratings = Stream.concat(storedRatings.stream(), scrapedRatings.stream())
+                    .map(rating -> StockMerger.withAllIndices(rating, indexMemberships))
+                    .toList();
+            LOG.info("Writing [{}] stocks as [{}] to [{}].", ratings.size(), format, outputFile);
+            ExportService exportService = format.createExportService(sheetPerIndex);
+            long exportStart = System.nanoTime();
+            exportService.export(ratings, outputFile);
+            scrapeService.recordPhase(RunPhase.EXPORT, exportStart);
+
+            if (previousResultFile != null) {
+                List<AktienfinderStock> previous = withResultIn(ResultSetReader.read(previousResultFile), ratings);
+                List<StockChange> changes = ResultDiff.diff(previous, ratings);
+                LOG.info("[{}] of [{}] stocks changed since [{}].", changes.size(), ratings.size(), previousResultFile);
+                new StockChangeExportService().export(changes, diffOutputFile);
             }
+
+            if (runReportFile != null) {
+                runReporter.writeReport(runReportFile);
+            }
+
+            for (BrowserPoolStatistics statistics : scrapeService.getBrowserPoolStatistics()) {
+                LOG.info("Browser pool: {}", statistics.toSummary());
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Only stocks with a result in this run can be compared. Other stocks were outside the input or shard, or
+     * failed to scrape, and would otherwise be reported as removed.
+     */
+    private static List<AktienfinderStock> withResultIn(
+            List<AktienfinderStock> previous, List<AktienfinderStock> ratings) {
+        Set<Isin> scrapedIsins = ratings.stream().map(rating -> rating.stock().isin()).collect(Collectors.toSet());
+        List<AktienfinderStock> comparable = previous.stream()
+                .filter(afStock -> scrapedIsins.contains(afStock.stock().isin()))
+                .toList();
+
+        if (comparable.size() < previous.size()) {
+            LOG.info(
+                    "Not comparing [{}] previous stocks without a result in this run.",
+                    previous.size() - comparable.size());
         }
 
-        var allStocks = Stream.concat(stocksFromIsinInput.stream(), stocksFromFileInput.stream())
-                .collect(Collectors.toSet());
+        return comparable;
+    }
+
+    private Optional<AktienfinderStock> fromStore(ScrapeResultStore resultStore, Stock stock, Instant now) {
+        if (resultStore == null || maxAge == null) {
+            return Optional.empty();
+        }
 
-        try (var scrapeService = new ScrapeService()) {
-            List<AktienfinderStock> ratings = scrapeService.scrapeAll(allStocks);
+        return resultStore.getFresh(stock.isin(), maxAge, now);
+    }
 
-            MsExcelExportService msExcelExportService = new MsExcelExportService();
-            msExcelExportService.export(ratings, outputFile);
+    /**
+     * Only lookups of single ISINs are forwarded; input files and diffs need the results in this process.
+     */
+    private boolean isAdHocLookup() {
+        return !noDaemon
+                && inputFiles.isEmpty()
+                && !stockIsins.isEmpty()
+                && shard == null
+                && resultStoreFile == null
+                && previousResultFile == null
+                && diffOutputFile == null;
+    }
+
+    private int scrapeWithDaemon(ScrapeDaemonClient daemon, ExportFormat format) throws IOException {
+        LOG.info("Forwarding [{}] stocks to the running daemon.", stockIsins.size());
+        ScrapeResponse response =
+                daemon.scrape(new ScrapeRequest(List.copyOf(stockIsins), outputFile, format, sheetPerIndex));
+
+        if (!response.successful()) {
+            LOG.error("Daemon was unable to scrape: [{}].", response.message());
+            return 1;
         }
 
+        LOG.info("Daemon wrote [{}] stocks as [{}] to [{}].", response.exported(), format, outputFile);
+
         return 0;
     }
+
+    static class ShardConverter implements ITypeConverter<Shard> {
+        @Override
+        public Shard convert(String value) {
+            try {
+                return Shard.parse(value);
+            } catch (IllegalArgumentException invalidShard) {
+                throw new TypeConversionException(invalidShard.getMessage());
+            }
+        }
+    }
 }
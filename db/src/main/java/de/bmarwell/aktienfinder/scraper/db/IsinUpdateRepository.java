@@ -15,14 +15,49 @@
  */
 package de.bmarwell.aktienfinder.scraper.db;
 
+import de.bmarwell.aktienfinder.scraper.db.dto.ErrorCursor;
 import de.bmarwell.aktienfinder.scraper.db.dto.StockBaseData;
+import de.bmarwell.aktienfinder.scraper.db.dto.StockErrorSummary;
+import de.bmarwell.aktienfinder.scraper.db.dto.StockUpdateCandidate;
 import de.bmarwell.aktienfinder.scraper.value.Isin;
 import java.io.Serializable;
-import java.util.Optional;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import org.jspecify.annotations.Nullable;
 
 public interface IsinUpdateRepository extends Serializable {
 
-    Optional<StockBaseData> getOldestUpdatedEntry();
+    /**
+     * Claims up to {@code batchSize} of the least recently updated stocks for one worker.
+     *
+     * <p>Only stocks which are not claimed by anyone, or whose lease expired, are claimed. Each stock is claimed
+     * with a conditional update, so two workers never claim the same stock even when they run against the same
+     * database at the same time.</p>
+     *
+     * @param workerId a unique id of the worker, e.g. host name and a random suffix.
+     * @param batchSize the maximum number of stocks to claim.
+     * @param leaseDuration how long the claim is valid unless renewed.
+     * @param updatedBefore only stocks last updated before this instant, or never updated, are claimed.
+     * @return the claimed stocks, stalest first. May be fewer than {@code batchSize}.
+     */
+    List<StockUpdateCandidate> claimBatch(
+            String workerId, int batchSize, Duration leaseDuration, Instant updatedBefore);
+
+    /**
+     * Extends the lease of a stock claimed by the given worker.
+     *
+     * @return {@code false} if the stock is no longer claimed by this worker, e.g. because the lease expired and
+     *         another worker claimed it.
+     */
+    boolean renewLease(Isin isin, String workerId, Duration leaseDuration);
+
+    /**
+     * Gives up the claim of a stock without updating it, so other workers can claim it immediately.
+     */
+    void releaseLease(Isin isin, String workerId);
 
     void setUpdatedNowSuccessful(Isin isin, String name);
 
@@ -30,5 +65,20 @@ public interface IsinUpdateRepository extends Serializable {
 
     StockBaseData addStock(Isin isin, String name);
 
-    Optional<StockBaseData> getLatestError();
+    /**
+     * Returns one page of the stocks whose last update failed, most recent error first.
+     *
+     * @param after the cursor of the last row of the previous page, or {@code null} for the first page.
+     * @param limit the maximum number of rows.
+     * @return the errors without stack traces; fewer than {@code limit} on the last page.
+     */
+    List<StockErrorSummary> getErrors(@Nullable ErrorCursor after, int limit);
+
+    /**
+     * Loads the stack traces of the last failed updates of the given stocks with a single query, e.g. for one page
+     * of {@link #getErrors(ErrorCursor, int)}.
+     *
+     * @return the stack traces by ISIN; stocks which do not exist or never failed are missing.
+     */
+    Map<Isin, String> getErrorMessages(Collection<Isin> isins);
 }
@@ -15,19 +15,30 @@
  */
 package de.bmarwell.aktienfinder.scraper.db;
 
+import de.bmarwell.aktienfinder.scraper.db.dto.ErrorCursor;
 import de.bmarwell.aktienfinder.scraper.db.dto.StockBaseData;
 import de.bmarwell.aktienfinder.scraper.db.dto.StockBaseData_;
+import de.bmarwell.aktienfinder.scraper.db.dto.StockErrorSummary;
+import de.bmarwell.aktienfinder.scraper.db.dto.StockUpdateCandidate;
 import de.bmarwell.aktienfinder.scraper.value.Isin;
 import jakarta.enterprise.context.Dependent;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
 import jakarta.transaction.Transactional;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintWriter;
 import java.io.Serial;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,20 +51,109 @@ public class JpaIsinUpdateRepository extends AbstractRepository implements IsinU
 
     private static final Logger log = LoggerFactory.getLogger(JpaIsinUpdateRepository.class);
 
-    public Optional<StockBaseData> getOldestUpdatedEntry() {
+    /**
+     * EclipseLink query hint: results are not registered in the persistence context, so no change tracking
+     * copies are made. Only used for entities which are not modified afterwards.
+     */
+    static final String READ_ONLY = "eclipselink.read-only";
+
+    @Override
+    public List<StockUpdateCandidate> claimBatch(
+            String workerId, int batchSize, Duration leaseDuration, Instant updatedBefore) {
         var em = this.getEntityManager();
         var cb = em.getCriteriaBuilder();
-        var query = cb.createQuery(StockBaseData.class);
-        Root<StockBaseData> from = query.from(StockBaseData.class);
-        query.orderBy(cb.asc(from.get(StockBaseData_.lastUpdateRun)));
+        Instant now = Instant.now();
 
-        List<StockBaseData> resultList = em.createQuery(query).setMaxResults(1).getResultList();
+        // only the keys; other workers may claim some of them first, so read a few more than needed.
+        var candidateQuery = cb.createQuery(Isin.class);
+        Root<StockBaseData> from = candidateQuery.from(StockBaseData.class);
+        candidateQuery
+                .select(from.get(StockBaseData_.isin))
+                .where(
+                        // stocks which were never updated have no last update run.
+                        cb.or(
+                                cb.isNull(from.get(StockBaseData_.lastUpdateRun)),
+                                cb.lessThan(from.get(StockBaseData_.lastUpdateRun), updatedBefore)),
+                        isClaimable(cb, from, now))
+                .orderBy(cb.asc(from.get(StockBaseData_.lastUpdateRun)));
+        List<Isin> candidates = em.createQuery(candidateQuery)
+                .setHint(READ_ONLY, true)
+                .setMaxResults(batchSize * 2)
+                .getResultList();
 
-        if (resultList.isEmpty()) {
-            return Optional.empty();
+        List<Isin> claimed = new ArrayList<>(batchSize);
+        for (Isin candidate : candidates) {
+            if (claimed.size() >= batchSize) {
+                break;
+            }
+
+            var claim = cb.createCriteriaUpdate(StockBaseData.class);
+            Root<StockBaseData> claimRoot = claim.from(StockBaseData.class);
+            claim.set(claimRoot.get(StockBaseData_.claimedBy), workerId)
+                    .set(claimRoot.get(StockBaseData_.leaseExpiresAt), now.plus(leaseDuration))
+                    .where(cb.equal(claimRoot.get(StockBaseData_.isin), candidate), isClaimable(cb, claimRoot, now));
+
+            // the row is only updated if nobody claimed it since the candidates were read.
+            if (em.createQuery(claim).executeUpdate() == 1) {
+                claimed.add(candidate);
+            }
         }
 
-        return Optional.of(resultList.getFirst());
+        if (claimed.isEmpty()) {
+            return List.of();
+        }
+
+        var claimedQuery = cb.createQuery(StockUpdateCandidate.class);
+        Root<StockBaseData> claimedRoot = claimedQuery.from(StockBaseData.class);
+        claimedQuery
+                .select(cb.construct(
+                        StockUpdateCandidate.class,
+                        claimedRoot.get(StockBaseData_.isin),
+                        claimedRoot.get(StockBaseData_.name),
+                        claimedRoot.get(StockBaseData_.lastUpdateRun)))
+                .where(claimedRoot.get(StockBaseData_.isin).in(claimed))
+                .orderBy(cb.asc(claimedRoot.get(StockBaseData_.lastUpdateRun)));
+
+        log.debug("Worker [{}] claimed [{}] of [{}] candidates.", workerId, claimed.size(), candidates.size());
+
+        return em.createQuery(claimedQuery).setHint(READ_ONLY, true).getResultList();
+    }
+
+    private static Predicate isClaimable(CriteriaBuilder cb, Root<StockBaseData> from, Instant now) {
+        return cb.or(
+                cb.isNull(from.get(StockBaseData_.claimedBy)),
+                cb.lessThan(from.get(StockBaseData_.leaseExpiresAt), now));
+    }
+
+    @Override
+    public boolean renewLease(Isin isin, String workerId, Duration leaseDuration) {
+        var em = this.getEntityManager();
+        var cb = em.getCriteriaBuilder();
+        var renewal = cb.createCriteriaUpdate(StockBaseData.class);
+        Root<StockBaseData> from = renewal.from(StockBaseData.class);
+        renewal.set(from.get(StockBaseData_.leaseExpiresAt), Instant.now().plus(leaseDuration))
+                .where(
+                        cb.equal(from.get(StockBaseData_.isin), isin),
+                        cb.equal(from.get(StockBaseData_.claimedBy), workerId));
+
+        return em.createQuery(renewal).executeUpdate() == 1;
+    }
+
+    @Override
+    public void releaseLease(Isin isin, String workerId) {
+        var em = this.getEntityManager();
+        var cb = em.getCriteriaBuilder();
+        var release = cb.createCriteriaUpdate(StockBaseData.class);
+        Root<StockBaseData> from = release.from(StockBaseData.class);
+        release.set(from.get(StockBaseData_.claimedBy), (String) null)
+                .set(from.get(StockBaseData_.leaseExpiresAt), (Instant) null)
+                .where(
+                        cb.equal(from.get(StockBaseData_.isin), isin),
+                        cb.equal(from.get(StockBaseData_.claimedBy), workerId));
+
+        if (em.createQuery(release).executeUpdate() == 0) {
+            log.warn("Stock [{}] was not claimed by [{}] anymore.", isin, workerId);
+        }
     }
 
     @Override
@@ -66,14 +166,20 @@ public class JpaIsinUpdateRepository extends AbstractRepository implements IsinU
             return;
         }
 
-        stockBaseData.setLastUpdateRun(Instant.now());
-        stockBaseData.setName(name);
-        stockBaseData.setErrorRunCount(0);
-        stockBaseData.setLastSuccessfulRun(Instant.now());
+        markSuccessful(stockBaseData, name, Instant.now());
         em.merge(stockBaseData);
         em.flush();
     }
 
+    static void markSuccessful(StockBaseData stockBaseData, String name, Instant updatedAt) {
+        stockBaseData.setLastUpdateRun(updatedAt);
+        stockBaseData.setName(name);
+        stockBaseData.setErrorRunCount(0);
+        stockBaseData.setLastSuccessfulRun(updatedAt);
+        stockBaseData.setClaimedBy(null);
+        stockBaseData.setLeaseExpiresAt(null);
+    }
+
     @Override
     public void setUpdatedNowWithError(Isin isin, Throwable throwable) {
         var em = this.getEntityManager();
@@ -84,16 +190,22 @@ public class JpaIsinUpdateRepository extends AbstractRepository implements IsinU
             return;
         }
 
+        markFailed(stockBaseData, throwable, Instant.now());
+        em.merge(stockBaseData);
+        em.flush();
+    }
+
+    static void markFailed(StockBaseData stockBaseData, Throwable throwable, Instant updatedAt) {
         String stackTrace = getStackTrace(throwable);
 
         log.info("setting stockBaseData: {} to error.", stackTrace.substring(0, Math.min(stackTrace.length(), 100)));
 
-        stockBaseData.setLastUpdateRun(Instant.now());
+        stockBaseData.setLastUpdateRun(updatedAt);
         stockBaseData.setErrorRunCount(stockBaseData.getErrorRunCount() + 1);
-        stockBaseData.setLastErrorRun(Instant.now());
+        stockBaseData.setLastErrorRun(updatedAt);
         stockBaseData.setLastErrorMessage(stackTrace);
-        em.merge(stockBaseData);
-        em.flush();
+        stockBaseData.setClaimedBy(null);
+        stockBaseData.setLeaseExpiresAt(null);
     }
 
     private static String getStackTrace(Throwable throwable) {
@@ -132,19 +244,64 @@ public class JpaIsinUpdateRepository extends AbstractRepository implements IsinU
     }
 
     @Override
-    public Optional<StockBaseData> getLatestError() {
+    public List<StockErrorSummary> getErrors(@Nullable ErrorCursor after, int limit) {
         var em = this.getEntityManager();
         var cb = em.getCriteriaBuilder();
-        var query = cb.createQuery(StockBaseData.class);
+        var query = cb.createQuery(StockErrorSummary.class);
         Root<StockBaseData> from = query.from(StockBaseData.class);
-        query.orderBy(cb.asc(from.get(StockBaseData_.lastUpdateRun)));
 
-        List<StockBaseData> resultList = em.createQuery(query).setMaxResults(1).getResultList();
+        List<Predicate> where = new ArrayList<>();
+        where.add(cb.greaterThan(from.get(StockBaseData_.errorRunCount), 0));
+        where.add(cb.isNotNull(from.get(StockBaseData_.lastErrorRun)));
+
+        if (after != null) {
+            // keyset: strictly behind the last row of the previous page in (lastErrorRun desc, isin asc) order.
+            where.add(cb.or(
+                    cb.lessThan(from.get(StockBaseData_.lastErrorRun), after.lastErrorRun()),
+                    cb.and(
+                            cb.equal(from.get(StockBaseData_.lastErrorRun), after.lastErrorRun()),
+                            cb.greaterThan(
+                                    from.get(StockBaseData_.isin).as(String.class),
+                                    after.isin().value()))));
+        }
+
+        query.select(cb.construct(
+                        StockErrorSummary.class,
+                        from.get(StockBaseData_.isin),
+                        from.get(StockBaseData_.name),
+                        from.get(StockBaseData_.errorRunCount),
+                        from.get(StockBaseData_.lastErrorRun),
+                        from.get(StockBaseData_.lastUpdateRun),
+                        from.get(StockBaseData_.lastSuccessfulRun)))
+                .where(where.toArray(Predicate[]::new))
+                .orderBy(cb.desc(from.get(StockBaseData_.lastErrorRun)), cb.asc(from.get(StockBaseData_.isin)));
+
+        return em.createQuery(query)
+                .setHint(READ_ONLY, true)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public Map<Isin, String> getErrorMessages(Collection<Isin> isins) {
+        if (isins.isEmpty()) {
+            return Map.of();
+        }
+
+        var em = this.getEntityManager();
+        var cb = em.getCriteriaBuilder();
+        var query = cb.createTupleQuery();
+        Root<StockBaseData> from = query.from(StockBaseData.class);
+        query.multiselect(from.get(StockBaseData_.isin), from.get(StockBaseData_.lastErrorMessage))
+                .where(
+                        from.get(StockBaseData_.isin).in(isins),
+                        cb.isNotNull(from.get(StockBaseData_.lastErrorMessage)));
 
-        if (resultList.isEmpty()) {
-            return Optional.empty();
+        Map<Isin, String> errorMessages = HashMap.newHashMap(isins.size());
+        for (Tuple row : em.createQuery(query).getResultList()) {
+            errorMessages.put(row.get(0, Isin.class), row.get(1, String.class));
         }
 
-        return Optional.of(resultList.getFirst());
+        return errorMessages;
     }
 }
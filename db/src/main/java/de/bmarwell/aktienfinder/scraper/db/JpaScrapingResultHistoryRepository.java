@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.db;
+
+import de.bmarwell.aktienfinder.scraper.db.dto.ScrapingResult;
+import de.bmarwell.aktienfinder.scraper.db.dto.ScrapingResultHistory;
+import de.bmarwell.aktienfinder.scraper.db.dto.ScrapingResultHistory_;
+import de.bmarwell.aktienfinder.scraper.db.mapper.ScrapingResultFingerprint;
+import de.bmarwell.aktienfinder.scraper.value.Isin;
+import jakarta.enterprise.context.Dependent;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.Root;
+import jakarta.transaction.Transactional;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+@Dependent
+@Transactional
+public class JpaScrapingResultHistoryRepository extends AbstractRepository implements ScrapingResultHistoryRepository {
+
+    /**
+     * Adds a new version. Only called for results whose content differs from the current result.
+     *
+     * @param current the new result.
+     * @param validFrom when the new result was scraped.
+     */
+    static void record(EntityManager em, ScrapingResult current, Instant validFrom) {
+        em.persist(new ScrapingResultHistory(current, validFrom, ScrapingResultFingerprint.stored(current)));
+    }
+
+    @Override
+    public Optional<ScrapingResultHistory> getVersionAt(Isin isin, Instant at) {
+        var em = this.getEntityManager();
+        var cb = em.getCriteriaBuilder();
+        var query = cb.createQuery(ScrapingResultHistory.class);
+        Root<ScrapingResultHistory> from = query.from(ScrapingResultHistory.class);
+        query.where(
+                        cb.equal(from.get(ScrapingResultHistory_.isin), isin),
+                        cb.lessThanOrEqualTo(from.get(ScrapingResultHistory_.validFrom), at))
+                .orderBy(cb.desc(from.get(ScrapingResultHistory_.validFrom)));
+
+        List<ScrapingResultHistory> resultList = em.createQuery(query)
+                .setHint(JpaIsinUpdateRepository.READ_ONLY, true)
+                .setMaxResults(1)
+                .getResultList();
+
+        if (resultList.isEmpty()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(resultList.getFirst());
+    }
+
+    @Override
+    public List<ScrapingResultHistory> getHistory(Isin isin, Instant from, Instant to) {
+        var em = this.getEntityManager();
+        var cb = em.getCriteriaBuilder();
+        var query = cb.createQuery(ScrapingResultHistory.class);
+        Root<ScrapingResultHistory> root = query.from(ScrapingResultHistory.class);
+        query.where(
+                        cb.equal(root.get(ScrapingResultHistory_.isin), isin),
+                        cb.greaterThan(root.get(ScrapingResultHistory_.validFrom), from),
+                        cb.lessThan(root.get(ScrapingResultHistory_.validFrom), to))
+                .orderBy(cb.asc(root.get(ScrapingResultHistory_.validFrom)));
+
+        List<ScrapingResultHistory> history = new ArrayList<>();
+        // the version which was already current at the start of the range.
+        getVersionAt(isin, from).ifPresent(history::add);
+        history.addAll(em.createQuery(query)
+                .setHint(JpaIsinUpdateRepository.READ_ONLY, true)
+                .getResultList());
+
+        return history;
+    }
+}
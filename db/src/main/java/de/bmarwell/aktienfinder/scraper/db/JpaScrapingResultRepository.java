@@ -15,19 +15,73 @@
  */
 package de.bmarwell.aktienfinder.scraper.db;
 
+import de.bmarwell.aktienfinder.scraper.db.dto.ScrapingResult;
+import de.bmarwell.aktienfinder.scraper.db.mapper.ScrapingResultFingerprint;
 import de.bmarwell.aktienfinder.scraper.db.mapper.ScrapingResultMapper;
 import de.bmarwell.aktienfinder.scraper.value.AktienfinderStock;
 import jakarta.enterprise.context.Dependent;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
 import jakarta.transaction.Transactional;
+import java.time.Instant;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 @Dependent
 @Transactional
 public class JpaScrapingResultRepository extends AbstractRepository implements ScrapingResultRepository {
 
+    private static final Logger log = LoggerFactory.getLogger(JpaScrapingResultRepository.class);
+
+    @Inject
+    ScrapingResultFingerprints fingerprints;
+
     @Override
     public void updateScrapingResult(AktienfinderStock aktienfinderStock) {
-        var em = this.getEntityManager();
         var scrapingResult = ScrapingResultMapper.toDto(aktienfinderStock);
-        em.merge(scrapingResult);
+
+        if (this.fingerprints.isUnchanged(scrapingResult)) {
+            log.debug("Result of [{}] unchanged, not written.", scrapingResult.getIsin());
+            return;
+        }
+
+        var em = this.getEntityManager();
+        var previous = em.find(ScrapingResult.class, scrapingResult.getIsin());
+        writeIfChanged(em, this.fingerprints, previous, scrapingResult, Instant.now());
+    }
+
+    /**
+     * Stores a new result and a new history version, unless the content equals the current result.
+     *
+     * @param previous the current result, managed by {@code em}, or {@code null} if there is none.
+     * @param current the new result as created by the {@link ScrapingResultMapper}.
+     * @param scrapedAt when the new result was scraped.
+     * @return the managed result.
+     */
+    static ScrapingResult writeIfChanged(
+            EntityManager em,
+            ScrapingResultFingerprints fingerprints,
+            @Nullable ScrapingResult previous,
+            ScrapingResult current,
+            Instant scrapedAt) {
+        long contentHash = ScrapingResultFingerprint.stored(current);
+        fingerprints.putAfterCommit(current.getIsin(), contentHash);
+
+        if (previous != null && ScrapingResultFingerprint.stored(previous) == contentHash) {
+            // only the hash is missing on rows written before it was stored.
+            previous.setContentHash(contentHash);
+            return previous;
+        }
+
+        JpaScrapingResultHistoryRepository.record(em, current, scrapedAt);
+
+        if (previous == null) {
+            em.persist(current);
+            return current;
+        }
+
+        // already managed, so merge only copies the state instead of selecting the row again.
+        return em.merge(current);
     }
 }
@@ -0,0 +1,155 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.db;
+
+import de.bmarwell.aktienfinder.scraper.db.dto.ScrapingResult;
+import de.bmarwell.aktienfinder.scraper.db.dto.ScrapingResult_;
+import de.bmarwell.aktienfinder.scraper.db.dto.StockBaseData;
+import de.bmarwell.aktienfinder.scraper.db.dto.StockBaseData_;
+import de.bmarwell.aktienfinder.scraper.db.dto.StockUpdateResult;
+import de.bmarwell.aktienfinder.scraper.db.mapper.ScrapingResultMapper;
+import de.bmarwell.aktienfinder.scraper.value.Isin;
+import jakarta.enterprise.context.Dependent;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.Root;
+import jakarta.transaction.Transactional;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes a batch of updates with one query per table to read the current rows, and no flush per stock.
+ *
+ * <p>All changes are sent on commit, where EclipseLink groups them into JDBC batches
+ * (see {@code eclipselink.jdbc.batch-writing} in the {@code persistence.xml}).</p>
+ */
+@Dependent
+@Transactional
+public class JpaStockUpdateBatchRepository extends AbstractRepository implements StockUpdateBatchRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(JpaStockUpdateBatchRepository.class);
+
+    @Inject
+    ScrapingResultFingerprints fingerprints;
+
+    @Override
+    public void writeBatch(List<StockUpdateResult> updates) {
+        if (updates.isEmpty()) {
+            return;
+        }
+
+        var em = this.getEntityManager();
+        List<Isin> isins = updates.stream().map(StockUpdateResult::isin).distinct().toList();
+        Map<Isin, StockBaseData> baseData = loadBaseData(em, isins);
+
+        // most results equal the stored ones; those need neither a select nor an update.
+        List<@Nullable ScrapingResult> changedResults = new ArrayList<>(updates.size());
+        Set<Isin> changedIsins = new HashSet<>();
+        for (StockUpdateResult update : updates) {
+            ScrapingResult changedResult = null;
+
+            if (update.isSuccessful()) {
+                var scrapingResult = ScrapingResultMapper.toDto(update.aktienfinderStock());
+
+                if (!this.fingerprints.isUnchanged(scrapingResult)) {
+                    changedResult = scrapingResult;
+                    changedIsins.add(update.isin());
+                }
+            }
+
+            changedResults.add(changedResult);
+        }
+
+        Map<Isin, ScrapingResult> scrapingResults =
+                changedIsins.isEmpty() ? new HashMap<>() : loadScrapingResults(em, List.copyOf(changedIsins));
+
+        for (int updateIndex = 0; updateIndex < updates.size(); updateIndex++) {
+            StockUpdateResult update = updates.get(updateIndex);
+            StockBaseData stockBaseData = baseData.get(update.isin());
+
+            if (stockBaseData == null) {
+                log.warn("Cannot update non-existent stock [{}].", update.isin());
+                continue;
+            }
+
+            String claimedBy = stockBaseData.getClaimedBy();
+            if (claimedBy != null && !claimedBy.equals(update.workerId())) {
+                // the lease expired before this write; the other worker's result must not be overwritten.
+                log.warn(
+                        "Stock [{}] is claimed by [{}] now, dropping the update of [{}].",
+                        update.isin(),
+                        claimedBy,
+                        update.workerId());
+                continue;
+            }
+
+            if (!update.isSuccessful()) {
+                JpaIsinUpdateRepository.markFailed(stockBaseData, update.error(), update.updatedAt());
+                continue;
+            }
+
+            ScrapingResult changedResult = changedResults.get(updateIndex);
+            if (changedResult != null) {
+                ScrapingResult managed = JpaScrapingResultRepository.writeIfChanged(
+                        em, this.fingerprints, scrapingResults.get(update.isin()), changedResult, update.updatedAt());
+                scrapingResults.put(update.isin(), managed);
+            }
+
+            JpaIsinUpdateRepository.markSuccessful(
+                    stockBaseData, update.aktienfinderStock().stock().name(), update.updatedAt());
+        }
+
+        log.debug(
+                "Wrote a batch of [{}] updates, [{}] with possibly changed results.",
+                updates.size(),
+                changedIsins.size());
+    }
+
+    private static Map<Isin, StockBaseData> loadBaseData(EntityManager em, List<Isin> isins) {
+        var cb = em.getCriteriaBuilder();
+        var query = cb.createQuery(StockBaseData.class);
+        Root<StockBaseData> from = query.from(StockBaseData.class);
+        query.where(from.get(StockBaseData_.isin).in(isins));
+
+        Map<Isin, StockBaseData> baseData = new HashMap<>();
+        for (StockBaseData stockBaseData : em.createQuery(query).getResultList()) {
+            baseData.put(stockBaseData.getIsin(), stockBaseData);
+        }
+
+        return baseData;
+    }
+
+    private static Map<Isin, ScrapingResult> loadScrapingResults(EntityManager em, List<Isin> isins) {
+        var cb = em.getCriteriaBuilder();
+        var query = cb.createQuery(ScrapingResult.class);
+        Root<ScrapingResult> from = query.from(ScrapingResult.class);
+        query.where(from.get(ScrapingResult_.isin).in(isins));
+
+        Map<Isin, ScrapingResult> scrapingResults = new HashMap<>();
+        for (ScrapingResult scrapingResult : em.createQuery(query).getResultList()) {
+            scrapingResults.put(scrapingResult.getIsin(), scrapingResult);
+        }
+
+        return scrapingResults;
+    }
+}
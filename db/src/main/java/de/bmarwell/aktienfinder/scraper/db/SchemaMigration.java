@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.db;
+
+import jakarta.annotation.Resource;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Brings the database schema up to date with versioned SQL scripts, instead of letting JPA drop and create it.
+ *
+ * <p>Each script in {@link #MIGRATIONS} runs once, in order, and is recorded in the {@code schema_version} table.
+ * A change to an entity therefore needs a new script; released scripts must never be changed.</p>
+ *
+ * <p>H2 commits DDL statements implicitly. If a script fails halfway, the server does not start, and the
+ * database must be fixed manually before the script can run again.</p>
+ */
+@ApplicationScoped
+public class SchemaMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaMigration.class);
+
+    static final List<Migration> MIGRATIONS = List.of(new Migration(1, "V1__initial_schema.sql"));
+
+    private static final String MIGRATION_DIRECTORY = "/db/migration/";
+
+    @Resource(lookup = "jdbc/AktienfinderScraperDB")
+    DataSource dataSource;
+
+    private boolean migrated;
+
+    public SchemaMigration() {
+        // cdi
+    }
+
+    /**
+     * Applies all migrations which were not applied before. Only runs once per application start.
+     *
+     * @throws IllegalStateException if a migration failed; the application must not use the database then.
+     */
+    public synchronized void migrate() {
+        if (this.migrated) {
+            return;
+        }
+
+        try (Connection connection = this.dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            createVersionTable(connection);
+
+            int currentVersion = getCurrentVersion(connection);
+            log.info("Database schema is at version [{}] of [{}].", currentVersion, MIGRATIONS.size());
+
+            for (Migration migration : MIGRATIONS) {
+                if (migration.version() > currentVersion) {
+                    apply(connection, migration);
+                }
+            }
+
+            this.migrated = true;
+        } catch (SQLException | IOException e) {
+            throw new IllegalStateException("Unable to migrate the database schema.", e);
+        }
+    }
+
+    private static void createVersionTable(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS SCHEMA_VERSION ("
+                    + "VERSION INTEGER NOT NULL PRIMARY KEY, "
+                    + "SCRIPT VARCHAR(255) NOT NULL, "
+                    + "APPLIED_AT TIMESTAMP(9) NOT NULL)");
+        }
+
+        connection.commit();
+    }
+
+    private static int getCurrentVersion(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery("SELECT MAX(VERSION) FROM SCHEMA_VERSION")) {
+            // MAX of no rows is NULL, which getInt returns as 0.
+            return resultSet.next() ? resultSet.getInt(1) : 0;
+        }
+    }
+
+    private static void apply(Connection connection, Migration migration) throws SQLException, IOException {
+        log.info("Migrating the database schema to version [{}] using [{}].", migration.version(), migration.script());
+
+        try (Statement statement = connection.createStatement();
+                PreparedStatement insertVersion = connection.prepareStatement(
+                        "INSERT INTO SCHEMA_VERSION (VERSION, SCRIPT, APPLIED_AT) VALUES (?, ?, CURRENT_TIMESTAMP)")) {
+            for (String sql : readStatements(migration.script())) {
+                statement.execute(sql);
+            }
+
+            insertVersion.setInt(1, migration.version());
+            insertVersion.setString(2, migration.script());
+            insertVersion.executeUpdate();
+
+            connection.commit();
+        } catch (SQLException sqlException) {
+            connection.rollback();
+            throw sqlException;
+        }
+    }
+
+    /**
+     * Reads the statements of a script. Statements end with a semicolon; lines starting with {@code --} are
+     * comments.
+     */
+    static List<String> readStatements(String script) throws IOException {
+        try (InputStream inputStream = SchemaMigration.class.getResourceAsStream(MIGRATION_DIRECTORY + script)) {
+            if (inputStream == null) {
+                throw new IOException("Migration script not found: " + script);
+            }
+
+            String content = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8)
+                    .lines()
+                    .filter(line -> !line.strip().startsWith("--"))
+                    .collect(Collectors.joining("\n"));
+
+            return Arrays.stream(content.split(";"))
+                    .map(String::strip)
+                    .filter(sql -> !sql.isEmpty())
+                    .toList();
+        }
+    }
+
+    /**
+     * A migration script.
+     *
+     * @param version the schema version after this script; consecutive, starting at 1.
+     * @param script the file name in {@code db/migration}.
+     */
+    record Migration(int version, String script) {}
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.db;
+
+import de.bmarwell.aktienfinder.scraper.db.dto.ScrapingResult;
+import de.bmarwell.aktienfinder.scraper.value.Isin;
+import jakarta.annotation.Resource;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers the content hash of the stored scraping result of each stock, so unchanged results are detected
+ * without reading the database.
+ *
+ * <p>Hashes are only remembered once the transaction which wrote them committed. The map is local to this
+ * server: if several servers share a database, a result written by another server is only detected after the
+ * next change.</p>
+ */
+@ApplicationScoped
+public class ScrapingResultFingerprints {
+
+    private final Map<Isin, Long> contentHashes = new ConcurrentHashMap<>();
+
+    @Resource
+    TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+
+    public ScrapingResultFingerprints() {
+        // cdi
+    }
+
+    /**
+     * Checks whether the stored result of this stock is known to have the same content.
+     *
+     * @param scrapingResult a new result as created by the {@code ScrapingResultMapper}.
+     * @return {@code true} if nothing needs to be written; {@code false} if unknown or changed.
+     */
+    public boolean isUnchanged(ScrapingResult scrapingResult) {
+        Long knownHash = this.contentHashes.get(scrapingResult.getIsin());
+
+        return knownHash != null && knownHash.equals(scrapingResult.getContentHash());
+    }
+
+    /**
+     * Remembers the hash of a result once the current transaction committed.
+     */
+    void putAfterCommit(Isin isin, long contentHash) {
+        this.transactionSynchronizationRegistry.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+                // nothing to prepare.
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                    ScrapingResultFingerprints.this.contentHashes.put(isin, contentHash);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.db;
+
+import de.bmarwell.aktienfinder.scraper.db.dto.ScrapingResultHistory;
+import de.bmarwell.aktienfinder.scraper.value.Isin;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface ScrapingResultHistoryRepository {
+
+    /**
+     * Returns the version of a stock's scraping result which was current at the given instant.
+     *
+     * @return the version, or empty if the stock was not scraped successfully before that instant.
+     */
+    Optional<ScrapingResultHistory> getVersionAt(Isin isin, Instant at);
+
+    /**
+     * Returns all versions of a stock's scraping result which were current at some point between {@code from}
+     * (inclusive) and {@code to} (exclusive).
+     *
+     * @return the versions, oldest first. The first one may have started before {@code from}.
+     */
+    List<ScrapingResultHistory> getHistory(Isin isin, Instant from, Instant to);
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.db;
+
+import de.bmarwell.aktienfinder.scraper.db.dto.StockUpdateResult;
+import java.util.List;
+
+public interface StockUpdateBatchRepository {
+
+    /**
+     * Writes the scraping results and the update bookkeeping of several stocks in a single transaction.
+     *
+     * <p>Successful updates store the scraping result and reset the error count, failed updates record the
+     * stack trace. Either way the claim of the stock is released.</p>
+     *
+     * <p>If another worker claimed a stock since it was scraped, e.g. because this write came after the lease
+     * expired, its update is dropped, so the other worker's result and lease are left untouched.</p>
+     *
+     * @param updates the outcomes to write, in the order they happened.
+     */
+    void writeBatch(List<StockUpdateResult> updates);
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.db.dto;
+
+import de.bmarwell.aktienfinder.scraper.value.Isin;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Keyset position in the list of errors, which is ordered by {@code lastErrorRun} descending and ISIN ascending.
+ *
+ * <p>Unlike an offset, a cursor stays valid while new errors are recorded, and reading the next page costs an
+ * index seek instead of skipping all previous rows.</p>
+ *
+ * @param lastErrorRun the last error of the last row read.
+ * @param isin the ISIN of the last row read.
+ */
+public record ErrorCursor(Instant lastErrorRun, Isin isin) {
+
+    private static final char SEPARATOR = '~';
+
+    /**
+     * Parses a cursor created by {@link #toToken()}.
+     *
+     * @param token the opaque token as passed by a client.
+     * @return the cursor.
+     * @throws IllegalArgumentException if the token is malformed.
+     */
+    public static ErrorCursor fromToken(String token) {
+        int separator = token.lastIndexOf(SEPARATOR);
+
+        if (separator < 0) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+
+        try {
+            return new ErrorCursor(
+                    Instant.parse(token.substring(0, separator)), Isin.fromString(token.substring(separator + 1)));
+        } catch (DateTimeParseException dtpe) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, dtpe);
+        }
+    }
+
+    public String toToken() {
+        return lastErrorRun.toString() + SEPARATOR + isin.value();
+    }
+}
@@ -58,6 +58,10 @@ public class ScrapingResult {
 
     private @Nullable BigDecimal beta;
 
+    /** Hash of all other columns, see {@code ScrapingResultFingerprint}; {@code null} for rows written before. */
+    @Column(name = "content_hash")
+    private @Nullable Long contentHash;
+
     public ScrapingResult() {
         // jpa
     }
@@ -195,4 +199,12 @@ public class ScrapingResult {
     public void setBeta(@Nullable BigDecimal beta) {
         this.beta = beta;
     }
+
+    public @Nullable Long getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(@Nullable Long contentHash) {
+        this.contentHash = contentHash;
+    }
 }
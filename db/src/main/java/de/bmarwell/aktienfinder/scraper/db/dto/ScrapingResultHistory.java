@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.db.dto;
+
+import de.bmarwell.aktienfinder.scraper.db.converter.IsinConverter;
+import de.bmarwell.aktienfinder.scraper.value.Isin;
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import java.math.BigDecimal;
+import java.time.Instant;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * One version of a {@link ScrapingResult}, valid from {@link #getValidFrom()} until the next version of the
+ * same stock.
+ *
+ * <p>Rows are only inserted, never updated. A new version is only written if the content hash differs from the
+ * current result, so a stock which is scraped daily but changes once a month adds one row per month.</p>
+ */
+@Entity
+@Table(
+        name = "scraping_result_history",
+        indexes = {@Index(name = "idx_history_isin_valid_from", columnList = "isin, valid_from")})
+public class ScrapingResultHistory {
+
+    /** A sequence with a large allocation size, so inserts need no round trip for their key and can be batched. */
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "scraping_result_history_seq")
+    @SequenceGenerator(name = "scraping_result_history_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "isin", nullable = false, length = 12)
+    @Convert(converter = IsinConverter.class)
+    private Isin isin;
+
+    @Column(name = "valid_from", nullable = false)
+    private Instant validFrom;
+
+    @Column(name = "content_hash", nullable = false)
+    private long contentHash;
+
+    @Column(name = "name")
+    private String name;
+
+    private @Nullable Double bilanzierterGewinn;
+
+    private @Nullable Double bereinigterGewinn;
+
+    private @Nullable Double operativerCashFlow;
+
+    private @Nullable String fazitBewertung;
+
+    private @Nullable Short dividendenEtragsScore;
+
+    private @Nullable Short dividendenwachstumsScore;
+
+    private @Nullable Short gewinnwachstumsScore;
+
+    private @Nullable String fazitZusammenfassung;
+
+    private @Nullable String finanzenNetRisiko;
+
+    private @Nullable String finanzenNetRisikoBeschreibung;
+
+    private @Nullable BigDecimal beta;
+
+    protected ScrapingResultHistory() {
+        // jpa
+    }
+
+    public ScrapingResultHistory(ScrapingResult scrapingResult, Instant validFrom, long contentHash) {
+        this.isin = scrapingResult.getIsin();
+        this.validFrom = validFrom;
+        this.contentHash = contentHash;
+        this.name = scrapingResult.getName();
+        this.bilanzierterGewinn = scrapingResult.getBilanzierterGewinn();
+        this.bereinigterGewinn = scrapingResult.getBereinigterGewinn();
+        this.operativerCashFlow = scrapingResult.getOperativerCashFlow();
+        this.fazitBewertung = scrapingResult.getFazitBewertung();
+        this.dividendenEtragsScore = scrapingResult.getDividendenEtragsScore();
+        this.dividendenwachstumsScore = scrapingResult.getDividendenwachstumsScore();
+        this.gewinnwachstumsScore = scrapingResult.getGewinnwachstumsScore();
+        this.fazitZusammenfassung = scrapingResult.getFazitZusammenfassung();
+        this.finanzenNetRisiko = scrapingResult.getFinanzenNetRisiko();
+        this.finanzenNetRisikoBeschreibung = scrapingResult.getFinanzenNetRisikoBeschreibung();
+        this.beta = scrapingResult.getBeta();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Isin getIsin() {
+        return isin;
+    }
+
+    public Instant getValidFrom() {
+        return validFrom;
+    }
+
+    public long getContentHash() {
+        return contentHash;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public @Nullable Double getBilanzierterGewinn() {
+        return bilanzierterGewinn;
+    }
+
+    public @Nullable Double getBereinigterGewinn() {
+        return bereinigterGewinn;
+    }
+
+    public @Nullable Double getOperativerCashFlow() {
+        return operativerCashFlow;
+    }
+
+    public @Nullable String getFazitBewertung() {
+        return fazitBewertung;
+    }
+
+    public @Nullable Short getDividendenEtragsScore() {
+        return dividendenEtragsScore;
+    }
+
+    public @Nullable Short getDividendenwachstumsScore() {
+        return dividendenwachstumsScore;
+    }
+
+    public @Nullable Short getGewinnwachstumsScore() {
+        return gewinnwachstumsScore;
+    }
+
+    public @Nullable String getFazitZusammenfassung() {
+        return fazitZusammenfassung;
+    }
+
+    public @Nullable String getFinanzenNetRisiko() {
+        return finanzenNetRisiko;
+    }
+
+    public @Nullable String getFinanzenNetRisikoBeschreibung() {
+        return finanzenNetRisikoBeschreibung;
+    }
+
+    public @Nullable BigDecimal getBeta() {
+        return beta;
+    }
+}
@@ -21,11 +21,21 @@ import jakarta.persistence.Basic;
 import jakarta.persistence.Column;
 import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
 import java.time.Instant;
 import org.jspecify.annotations.Nullable;
 
 @Entity
+@Table(
+        indexes = {
+            @Index(name = "idx_stock_last_update_run", columnList = "last_update_run"),
+            @Index(name = "idx_stock_last_error_run", columnList = "last_error_run"),
+            @Index(name = "idx_stock_error_run_count", columnList = "error_run_count")
+        })
 public class StockBaseData {
 
     @Id
@@ -45,12 +55,23 @@ public class StockBaseData {
     @Column(name = "last_error_run")
     private @Nullable Instant lastErrorRun;
 
+    /** A full stack trace; only loaded when accessed. */
+    @Lob
+    @Basic(fetch = FetchType.LAZY)
     @Column(name = "last_error_message")
     private @Nullable String lastErrorMessage;
 
     @Column(name = "error_run_count", nullable = true)
     private int errorRunCount = 0;
 
+    /** The worker currently processing this stock, or {@code null} if unclaimed. */
+    @Column(name = "claimed_by")
+    private @Nullable String claimedBy;
+
+    /** The claim is void after this instant, so a crashed worker does not block the stock forever. */
+    @Column(name = "lease_expires_at")
+    private @Nullable Instant leaseExpiresAt;
+
     protected StockBaseData() {
         // jpa
     }
@@ -122,4 +143,20 @@ public class StockBaseData {
     public void setErrorRunCount(int errorRunCount) {
         this.errorRunCount = errorRunCount;
     }
+
+    public @Nullable String getClaimedBy() {
+        return claimedBy;
+    }
+
+    public void setClaimedBy(@Nullable String claimedBy) {
+        this.claimedBy = claimedBy;
+    }
+
+    public @Nullable Instant getLeaseExpiresAt() {
+        return leaseExpiresAt;
+    }
+
+    public void setLeaseExpiresAt(@Nullable Instant leaseExpiresAt) {
+        this.leaseExpiresAt = leaseExpiresAt;
+    }
 }
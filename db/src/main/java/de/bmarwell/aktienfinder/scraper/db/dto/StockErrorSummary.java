@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.db.dto;
+
+import de.bmarwell.aktienfinder.scraper.value.Isin;
+import java.time.Instant;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Read-only projection of a failed {@link StockBaseData} without the stack trace.
+ *
+ * @param isin the ISIN of the stock.
+ * @param name the name of the stock.
+ * @param errorRunCount number of failed updates since the last successful one.
+ * @param lastErrorRun the last failed update.
+ * @param lastUpdateRun the last update, successful or not.
+ * @param lastSuccessfulRun the last successful update, or {@code null} if there was none.
+ */
+public record StockErrorSummary(
+        Isin isin,
+        String name,
+        int errorRunCount,
+        Instant lastErrorRun,
+        @Nullable Instant lastUpdateRun,
+        @Nullable Instant lastSuccessfulRun) {
+
+    /**
+     * Returns the cursor to read the errors following this one.
+     *
+     * @return the keyset position of this row.
+     */
+    public ErrorCursor cursor() {
+        return new ErrorCursor(lastErrorRun, isin);
+    }
+}
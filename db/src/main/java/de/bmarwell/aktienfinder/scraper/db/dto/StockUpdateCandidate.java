@@ -0,0 +1,31 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.db.dto;
+
+import de.bmarwell.aktienfinder.scraper.value.Isin;
+import java.time.Instant;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Read-only projection of {@link StockBaseData} with only the columns the scheduler needs to scrape a stock.
+ *
+ * <p>Unlike the entity, it never loads the error message and is not managed by the persistence context.</p>
+ *
+ * @param isin the ISIN of the stock.
+ * @param name the name of the stock.
+ * @param lastUpdateRun the last update, successful or not; {@code null} if the stock was never updated.
+ */
+public record StockUpdateCandidate(Isin isin, String name, @Nullable Instant lastUpdateRun) {}
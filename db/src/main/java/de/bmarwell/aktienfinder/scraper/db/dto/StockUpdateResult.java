@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.db.dto;
+
+import de.bmarwell.aktienfinder.scraper.value.AktienfinderStock;
+import de.bmarwell.aktienfinder.scraper.value.Isin;
+import java.time.Instant;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * The outcome of one scheduled update of a stock, waiting to be written together with others.
+ *
+ * @param isin the ISIN of the stock.
+ * @param workerId the worker which claimed and scraped the stock.
+ * @param aktienfinderStock the scraped data, or {@code null} if the update failed.
+ * @param error the cause of the failure, or {@code null} if the update was successful.
+ * @param updatedAt when the stock was scraped; written as the update time instead of the time of the write.
+ */
+public record StockUpdateResult(
+        Isin isin,
+        String workerId,
+        @Nullable AktienfinderStock aktienfinderStock,
+        @Nullable Throwable error,
+        Instant updatedAt) {
+
+    public static StockUpdateResult successful(
+            String workerId, AktienfinderStock aktienfinderStock, Instant updatedAt) {
+        return new StockUpdateResult(aktienfinderStock.stock().isin(), workerId, aktienfinderStock, null, updatedAt);
+    }
+
+    public static StockUpdateResult failed(String workerId, Isin isin, Throwable error, Instant updatedAt) {
+        return new StockUpdateResult(isin, workerId, null, error, updatedAt);
+    }
+
+    public boolean isSuccessful() {
+        return aktienfinderStock != null;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.db.mapper;
+
+import de.bmarwell.aktienfinder.scraper.db.dto.ScrapingResult;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * Hashes the content of a {@link ScrapingResult}, so unchanged results can be detected without comparing
+ * every column.
+ *
+ * <p>The ISIN is not part of the hash, as only results of the same stock are compared.</p>
+ */
+public final class ScrapingResultFingerprint {
+
+    private static final byte SEPARATOR = 0x1f;
+
+    private static final byte NULL = 0x00;
+
+    private ScrapingResultFingerprint() {
+        // utility
+    }
+
+    /**
+     * Returns the stored hash, or computes it for rows written before the hash was stored.
+     *
+     * @param scrapingResult a result read from the database.
+     * @return the content hash.
+     */
+    public static long stored(ScrapingResult scrapingResult) {
+        Long contentHash = scrapingResult.getContentHash();
+
+        if (contentHash == null) {
+            return of(scrapingResult);
+        }
+
+        return contentHash;
+    }
+
+    /**
+     * Hashes all columns except the ISIN and the hash itself.
+     *
+     * @param scrapingResult the result to hash.
+     * @return the first 64 bits of a SHA-256 hash.
+     */
+    public static long of(ScrapingResult scrapingResult) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+
+            update(digest, scrapingResult.getName());
+            update(digest, scrapingResult.getBilanzierterGewinn());
+            update(digest, scrapingResult.getBereinigterGewinn());
+            update(digest, scrapingResult.getOperativerCashFlow());
+            update(digest, scrapingResult.getFazitBewertung());
+            update(digest, scrapingResult.getDividendenEtragsScore());
+            update(digest, scrapingResult.getDividendenwachstumsScore());
+            update(digest, scrapingResult.getGewinnwachstumsScore());
+            update(digest, scrapingResult.getFazitZusammenfassung());
+            update(digest, scrapingResult.getFinanzenNetRisiko());
+            update(digest, scrapingResult.getFinanzenNetRisikoBeschreibung());
+            update(digest, scrapingResult.getBeta());
+
+            return ByteBuffer.wrap(digest.digest()).getLong();
+        } catch (NoSuchAlgorithmException nsae) {
+            throw new IllegalStateException("SHA-256 not available", nsae);
+        }
+    }
+
+    private static void update(MessageDigest digest, @Nullable Object value) {
+        if (value == null) {
+            digest.update(NULL);
+        } else if (value instanceof BigDecimal decimal) {
+            // the database may return a different scale than was written.
+            digest.update(decimal.stripTrailingZeros().toPlainString().getBytes(StandardCharsets.UTF_8));
+        } else {
+            digest.update(value.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        digest.update(SEPARATOR);
+    }
+}
@@ -26,7 +26,7 @@ public final class ScrapingResultMapper {
         var stockFazit = aktienfinderStock.stockFazit();
         var finanzenNetRisiko = aktienfinderStock.finanzenNetRisiko();
 
-        return new ScrapingResult(
+        var scrapingResult = new ScrapingResult(
                 base.isin(),
                 base.name(),
                 bewertung.blianzierterGewinn(),
@@ -40,5 +40,8 @@ public final class ScrapingResultMapper {
                 finanzenNetRisiko.risiko().orElse(""),
                 finanzenNetRisiko.risikoBeschreibung().orElse(""),
                 finanzenNetRisiko.beta().orElse(null));
+        scrapingResult.setContentHash(ScrapingResultFingerprint.of(scrapingResult));
+
+        return scrapingResult;
     }
 }
@@ -0,0 +1,62 @@
+-- Schema of the entities as of the switch from JPA schema generation to versioned migrations.
+-- Never change a released script; add a new version to SchemaMigration instead.
+
+CREATE TABLE STOCKBASEDATA (
+    ISIN VARCHAR(12) NOT NULL,
+    NAME VARCHAR(255),
+    LAST_UPDATE_RUN TIMESTAMP(9),
+    LAST_SUCCESSFUL_RUN TIMESTAMP(9),
+    LAST_ERROR_RUN TIMESTAMP(9),
+    LAST_ERROR_MESSAGE CLOB,
+    ERROR_RUN_COUNT INTEGER DEFAULT 0,
+    CLAIMED_BY VARCHAR(255),
+    LEASE_EXPIRES_AT TIMESTAMP(9),
+    PRIMARY KEY (ISIN)
+);
+
+CREATE INDEX idx_stock_last_update_run ON STOCKBASEDATA (LAST_UPDATE_RUN);
+CREATE INDEX idx_stock_last_error_run ON STOCKBASEDATA (LAST_ERROR_RUN);
+CREATE INDEX idx_stock_error_run_count ON STOCKBASEDATA (ERROR_RUN_COUNT);
+
+CREATE TABLE SCRAPINGRESULT (
+    ISIN VARCHAR(12) NOT NULL,
+    NAME VARCHAR(255),
+    BILANZIERTERGEWINN DOUBLE PRECISION,
+    BEREINIGTERGEWINN DOUBLE PRECISION,
+    OPERATIVERCASHFLOW DOUBLE PRECISION,
+    FAZITBEWERTUNG VARCHAR(255),
+    DIVIDENDENETRAGSSCORE SMALLINT,
+    DIVIDENDENWACHSTUMSSCORE SMALLINT,
+    GEWINNWACHSTUMSSCORE SMALLINT,
+    FAZITZUSAMMENFASSUNG VARCHAR(4000),
+    FINANZENNETRISIKO VARCHAR(255),
+    FINANZENNETRISIKOBESCHREIBUNG VARCHAR(4000),
+    BETA DECIMAL(20, 10),
+    CONTENT_HASH BIGINT,
+    PRIMARY KEY (ISIN)
+);
+
+CREATE TABLE SCRAPING_RESULT_HISTORY (
+    ID BIGINT NOT NULL,
+    ISIN VARCHAR(12) NOT NULL,
+    VALID_FROM TIMESTAMP(9) NOT NULL,
+    CONTENT_HASH BIGINT NOT NULL,
+    NAME VARCHAR(255),
+    BILANZIERTERGEWINN DOUBLE PRECISION,
+    BEREINIGTERGEWINN DOUBLE PRECISION,
+    OPERATIVERCASHFLOW DOUBLE PRECISION,
+    FAZITBEWERTUNG VARCHAR(255),
+    DIVIDENDENETRAGSSCORE SMALLINT,
+    DIVIDENDENWACHSTUMSSCORE SMALLINT,
+    GEWINNWACHSTUMSSCORE SMALLINT,
+    FAZITZUSAMMENFASSUNG VARCHAR(4000),
+    FINANZENNETRISIKO VARCHAR(255),
+    FINANZENNETRISIKOBESCHREIBUNG VARCHAR(4000),
+    BETA DECIMAL(20, 10),
+    PRIMARY KEY (ID)
+);
+
+CREATE INDEX idx_history_isin_valid_from ON SCRAPING_RESULT_HISTORY (ISIN, VALID_FROM);
+
+-- EclipseLink hands out the 50 ids up to each value read, see the allocationSize of ScrapingResultHistory.
+CREATE SEQUENCE SCRAPING_RESULT_HISTORY_SEQ START WITH 50 INCREMENT BY 50;
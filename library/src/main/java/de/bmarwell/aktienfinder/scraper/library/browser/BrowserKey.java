@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.library.browser;
+
+import com.microsoft.playwright.BrowserType.LaunchOptions;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Identifies a pool of browsers which were launched the same way.
+ *
+ * <p>Two keys are equal if they use the same engine and the same launch options, so that
+ * pooled browsers of one key can be used interchangeably.</p>
+ *
+ * @param engine the browser engine to launch.
+ * @param headless whether to launch the browser in headless mode.
+ * @param args additional command line arguments passed to the browser.
+ */
+public record BrowserKey(BrowserEngine engine, boolean headless, List<String> args) {
+
+    public BrowserKey {
+        args = List.copyOf(args);
+    }
+
+    public static BrowserKey headless(BrowserEngine engine) {
+        return new BrowserKey(engine, true, List.of());
+    }
+
+    public LaunchOptions toLaunchOptions() {
+        return new LaunchOptions().setHeadless(headless).setArgs(args);
+    }
+
+    @Override
+    public String toString() {
+        String name = engine.name().toLowerCase(Locale.ROOT) + "/" + (headless ? "headless" : "headed");
+
+        if (args.isEmpty()) {
+            return name;
+        }
+
+        return name + args;
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.library.browser;
+
+import com.microsoft.playwright.Browser;
+import de.bmarwell.aktienfinder.scraper.library.caching.PoolMetrics;
+import de.bmarwell.aktienfinder.scraper.library.caching.PoolStatistics;
+import de.bmarwell.aktienfinder.scraper.library.caching.PoorMansCache;
+import de.bmarwell.aktienfinder.scraper.library.caching.PoorMansCache.Instance;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A keyed pool of launched browsers.
+ *
+ * <p>Each {@link BrowserKey} (engine and launch options) gets its own {@link PoorMansCache} with its own
+ * size limit, so that e.g. a chromium pool for index downloads and a firefox pool for scraping can be sized
+ * independently, and one pooled Playwright instance never drives more than one engine.</p>
+ *
+ * <p>Callers should create a new {@code BrowserContext} per unit of work on the returned browser and close
+ * it afterwards; the browser itself is reused.</p>
+ */
+public class BrowserPool implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BrowserPool.class);
+
+    private final Map<BrowserKey, Integer> limits;
+    private final int defaultLimit;
+    private final Function<BrowserKey, PoolMetrics> metricsFactory;
+
+    private final Map<BrowserKey, PoorMansCache<PooledBrowser>> pools = new ConcurrentHashMap<>();
+    private final Map<BrowserKey, Set<PooledBrowser>> launchedBrowsers = new ConcurrentHashMap<>();
+
+    public BrowserPool(Map<BrowserKey, Integer> limits, int defaultLimit) {
+        this(limits, defaultLimit, key -> new PoolMetrics());
+    }
+
+    /**
+     * Creates a new browser pool.
+     *
+     * @param limits the maximum number of browsers per key.
+     * @param defaultLimit the maximum number of browsers for keys not contained in {@code limits}.
+     * @param metricsFactory creates (or looks up) the metrics to record to for a given key.
+     */
+    public BrowserPool(
+            Map<BrowserKey, Integer> limits, int defaultLimit, Function<BrowserKey, PoolMetrics> metricsFactory) {
+        this.limits = Map.copyOf(limits);
+        this.defaultLimit = defaultLimit;
+        this.metricsFactory = metricsFactory;
+    }
+
+    /**
+     * Returns a connected browser for the given key, launching a new one if the limit of that key allows it.
+     *
+     * @param key the engine and launch options.
+     * @return a browser instance which must be closed to return it to the pool.
+     * @throws TimeoutException if no browser became available in time.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public Instance<Browser> getBlocking(BrowserKey key) throws TimeoutException, InterruptedException {
+        PoorMansCache<PooledBrowser> pool = poolFor(key);
+
+        for (int tries = 0; tries < 3; tries++) {
+            Instance<PooledBrowser> pooledBrowser = pool.getBlocking();
+
+            if (pooledBrowser.instance().isConnected()) {
+                return new BrowserInstance(pooledBrowser);
+            }
+
+            LOG.warn("discarding disconnected browser [{}].", pooledBrowser.instance());
+            pool.discard(pooledBrowser);
+        }
+
+        throw new IllegalStateException("Unable to obtain a connected browser for " + key);
+    }
+
+    public PoolStatistics getPoolStatistics(BrowserKey key) {
+        return poolFor(key).getMetrics().snapshot();
+    }
+
+    /**
+     * Returns the statistics of every key which was requested at least once, including the memory
+     * used by the browsers of each key.
+     *
+     * @return one entry per key.
+     */
+    public List<BrowserPoolStatistics> getStatistics() {
+        List<BrowserPoolStatistics> statistics = new ArrayList<>();
+
+        for (var entry : this.pools.entrySet()) {
+            BrowserKey key = entry.getKey();
+            Set<PooledBrowser> browsers = this.launchedBrowsers.getOrDefault(key, Set.of());
+            long residentMemory =
+                    browsers.stream().mapToLong(PooledBrowser::residentMemoryBytes).sum();
+
+            statistics.add(new BrowserPoolStatistics(
+                    key,
+                    limitFor(key),
+                    browsers.size(),
+                    residentMemory,
+                    entry.getValue().getMetrics().snapshot()));
+        }
+
+        return List.copyOf(statistics);
+    }
+
+    private PoorMansCache<PooledBrowser> poolFor(BrowserKey key) {
+        return this.pools.computeIfAbsent(
+                key,
+                newKey -> new PoorMansCache<>(limitFor(newKey), () -> launch(newKey), metricsFactory.apply(newKey)));
+    }
+
+    private int limitFor(BrowserKey key) {
+        return this.limits.getOrDefault(key, this.defaultLimit);
+    }
+
+    private PooledBrowser launch(BrowserKey key) {
+        Set<PooledBrowser> browsersOfKey =
+                this.launchedBrowsers.computeIfAbsent(key, newKey -> ConcurrentHashMap.newKeySet());
+        PooledBrowser launched = PooledBrowser.launch(key, browsersOfKey::remove);
+        browsersOfKey.add(launched);
+
+        return launched;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (PoorMansCache<PooledBrowser> pool : this.pools.values()) {
+            pool.close();
+        }
+    }
+
+    record BrowserInstance(Instance<PooledBrowser> pooledBrowser) implements Instance<Browser> {
+
+        @Override
+        public Browser instance() {
+            return pooledBrowser.instance().browser();
+        }
+
+        @Override
+        public void close() throws Exception {
+            pooledBrowser.close();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.library.browser;
+
+import de.bmarwell.aktienfinder.scraper.library.caching.PoolStatistics;
+import java.util.Locale;
+
+/**
+ * Statistics of the browsers pooled for a single {@link BrowserKey}.
+ *
+ * @param key the key of the pool.
+ * @param limit the maximum number of browsers for this key.
+ * @param browsers the number of currently launched browsers.
+ * @param residentMemoryBytes the resident memory of all launched browsers including their driver processes,
+ *                            or {@code 0} if it cannot be determined on this platform.
+ * @param pool the counters, gauges and wait times of the underlying pool.
+ */
+public record BrowserPoolStatistics(
+        BrowserKey key, int limit, int browsers, long residentMemoryBytes, PoolStatistics pool) {
+
+    public String toSummary() {
+        return String.format(
+                Locale.ROOT,
+                "[%s] browsers=%d/%d, rss=%dMiB, %s",
+                key,
+                browsers,
+                limit,
+                residentMemoryBytes / (1024L * 1024L),
+                pool.toSummary());
+    }
+}
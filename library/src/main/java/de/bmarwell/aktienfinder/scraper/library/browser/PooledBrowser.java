@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.library.browser;
+
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.Playwright;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A launched browser together with the {@link Playwright} instance (and thus the node driver process) it belongs to.
+ *
+ * <p>Each pooled browser owns its own Playwright instance, because Playwright instances must not be used
+ * by more than one thread at a time. Closing a pooled browser closes both the browser and the driver.</p>
+ */
+public final class PooledBrowser implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PooledBrowser.class);
+
+    /** Serializes driver start-up, so that the newly spawned driver process can be identified. */
+    private static final Object DRIVER_START_LOCK = new Object();
+
+    private final BrowserKey key;
+    private final Playwright playwright;
+    private final Browser browser;
+    private final Optional<ProcessHandle> driverProcess;
+    private final Consumer<PooledBrowser> closeListener;
+
+    private PooledBrowser(
+            BrowserKey key,
+            Playwright playwright,
+            Browser browser,
+            Optional<ProcessHandle> driverProcess,
+            Consumer<PooledBrowser> closeListener) {
+        this.key = key;
+        this.playwright = playwright;
+        this.browser = browser;
+        this.driverProcess = driverProcess;
+        this.closeListener = closeListener;
+    }
+
+    /**
+     * Starts a new Playwright driver and launches a browser as described by the given key.
+     *
+     * @param key the engine and launch options.
+     * @return the launched browser.
+     */
+    public static PooledBrowser launch(BrowserKey key) {
+        return launch(key, closed -> {});
+    }
+
+    static PooledBrowser launch(BrowserKey key, Consumer<PooledBrowser> closeListener) {
+        Playwright playwright;
+        Optional<ProcessHandle> driverProcess;
+
+        synchronized (DRIVER_START_LOCK) {
+            Set<Long> childrenBefore = childPids();
+            playwright = Playwright.create();
+            driverProcess = ProcessHandle.current()
+                    .children()
+                    .filter(child -> !childrenBefore.contains(child.pid()))
+                    .findFirst();
+        }
+
+        try {
+            Browser browser = key.engine().browserType(playwright).launch(key.toLaunchOptions());
+            LOG.debug("launched browser [{}] with driver process [{}].", key, driverProcess);
+
+            return new PooledBrowser(key, playwright, browser, driverProcess, closeListener);
+        } catch (RuntimeException launchEx) {
+            playwright.close();
+            throw launchEx;
+        }
+    }
+
+    private static Set<Long> childPids() {
+        return ProcessHandle.current().children().map(ProcessHandle::pid).collect(Collectors.toSet());
+    }
+
+    public BrowserKey key() {
+        return key;
+    }
+
+    public Browser browser() {
+        return browser;
+    }
+
+    public boolean isConnected() {
+        return browser.isConnected();
+    }
+
+    /**
+     * Returns the resident memory of the driver process and all browser processes it spawned.
+     *
+     * @return the resident set size in bytes, or {@code 0} if it cannot be determined on this platform.
+     */
+    public long residentMemoryBytes() {
+        return driverProcess.map(ProcessMemory::residentSetSizeOfTree).orElse(0L);
+    }
+
+    @Override
+    public void close() {
+        try {
+            browser.close();
+        } catch (RuntimeException closeEx) {
+            LOG.debug("unable to close browser [{}].", key, closeEx);
+        } finally {
+            playwright.close();
+            closeListener.accept(this);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PooledBrowser{key=" + key + ", driverProcess=" + driverProcess.map(ProcessHandle::pid) + '}';
+    }
+}
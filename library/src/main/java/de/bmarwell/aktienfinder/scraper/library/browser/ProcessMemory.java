@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.library.browser;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Reads the resident memory of processes from {@code /proc}.
+ *
+ * <p>Only works on Linux; on other platforms all methods return {@code 0}. Memory shared between
+ * processes (e.g. the chromium zygote) is counted once per process, so the sum is an upper bound.</p>
+ */
+final class ProcessMemory {
+
+    private ProcessMemory() {
+        // utility
+    }
+
+    static long residentSetSizeOfTree(ProcessHandle root) {
+        return Stream.concat(Stream.of(root), root.descendants())
+                .mapToLong(ProcessMemory::residentSetSize)
+                .sum();
+    }
+
+    static long residentSetSize(ProcessHandle process) {
+        Path status = Path.of("/proc", String.valueOf(process.pid()), "status");
+
+        try {
+            List<String> lines = Files.readAllLines(status, StandardCharsets.UTF_8);
+
+            for (String line : lines) {
+                // VmRSS:	  123456 kB
+                if (line.startsWith("VmRSS:")) {
+                    String kiloBytes = line.substring("VmRSS:".length()).replace("kB", "").strip();
+
+                    return Long.parseLong(kiloBytes) * 1024L;
+                }
+            }
+        } catch (IOException | RuntimeException ioEx) {
+            // process gone or not on linux.
+        }
+
+        return 0L;
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.library.caching;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects counters, gauges and a wait-time histogram for a {@link PoorMansCache}.
+ *
+ * <p>All recording methods are lock-free, so they can be called while the cache holds its monitor.
+ * An instance may be shared by several caches (e.g. one cache per short-lived {@code ScrapeService}),
+ * in which case the numbers are aggregated across all of them.</p>
+ *
+ * <p>Use {@link #snapshot()} to read a consistent-enough copy of the current values.</p>
+ */
+public final class PoolMetrics {
+
+    /**
+     * Upper bounds (inclusive) of the wait-time histogram buckets in milliseconds.
+     * An additional overflow bucket collects all waits above the last bound.
+     */
+    static final List<Long> WAIT_TIME_BUCKETS_MILLIS =
+            List.of(1L, 10L, 50L, 100L, 250L, 500L, 1_000L, 2_500L, 5_000L, 10_000L);
+
+    private final LongAdder created = new LongAdder();
+    private final LongAdder acquired = new LongAdder();
+    private final LongAdder evicted = new LongAdder();
+    private final LongAdder closed = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    private final AtomicInteger inUse = new AtomicInteger();
+    private final AtomicInteger idle = new AtomicInteger();
+
+    private final AtomicLongArray waitTimeBuckets = new AtomicLongArray(WAIT_TIME_BUCKETS_MILLIS.size() + 1);
+    private final LongAdder waitCount = new LongAdder();
+    private final LongAdder waitSumNanos = new LongAdder();
+    private final AtomicLong waitMaxNanos = new AtomicLong();
+
+    void recordCreated() {
+        this.created.increment();
+    }
+
+    void recordAcquired(boolean reused) {
+        this.acquired.increment();
+        this.inUse.incrementAndGet();
+
+        if (reused) {
+            this.idle.decrementAndGet();
+        }
+    }
+
+    void recordReleased() {
+        this.inUse.decrementAndGet();
+        this.idle.incrementAndGet();
+    }
+
+    void recordEvicted() {
+        this.evicted.increment();
+        this.idle.decrementAndGet();
+    }
+
+    void recordClosed() {
+        this.closed.increment();
+        this.idle.decrementAndGet();
+    }
+
+    void recordTimeout() {
+        this.timeouts.increment();
+    }
+
+    void recordWait(long waitNanos) {
+        long waitMillis = waitNanos / 1_000_000L;
+        int bucket = 0;
+
+        while (bucket < WAIT_TIME_BUCKETS_MILLIS.size() && waitMillis > WAIT_TIME_BUCKETS_MILLIS.get(bucket)) {
+            bucket++;
+        }
+
+        this.waitTimeBuckets.incrementAndGet(bucket);
+        this.waitCount.increment();
+        this.waitSumNanos.add(waitNanos);
+        this.waitMaxNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    /**
+     * Returns a snapshot of the current values. Counters are read one after another, so under load
+     * the values might be off by a few in-flight operations.
+     *
+     * @return a point-in-time copy of all counters, gauges and histogram buckets.
+     */
+    public PoolStatistics snapshot() {
+        List<Long> bucketCounts = new ArrayList<>(this.waitTimeBuckets.length());
+        for (int bucket = 0; bucket < this.waitTimeBuckets.length(); bucket++) {
+            bucketCounts.add(this.waitTimeBuckets.get(bucket));
+        }
+
+        return new PoolStatistics(
+                this.created.sum(),
+                this.acquired.sum(),
+                this.evicted.sum(),
+                this.closed.sum(),
+                this.timeouts.sum(),
+                Math.max(this.inUse.get(), 0),
+                Math.max(this.idle.get(), 0),
+                this.waitCount.sum(),
+                Duration.ofNanos(this.waitSumNanos.sum()),
+                Duration.ofNanos(this.waitMaxNanos.get()),
+                WAIT_TIME_BUCKETS_MILLIS,
+                List.copyOf(bucketCounts));
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.library.caching;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Point-in-time copy of the values collected by {@link PoolMetrics}.
+ *
+ * @param created number of instances created by the supplier.
+ * @param acquired number of successful {@code get} calls (new or reused instances).
+ * @param evicted number of idle instances thrown away because they were too old.
+ * @param closed number of idle instances closed when the cache was closed.
+ * @param timeouts number of {@code getBlocking} calls which gave up waiting.
+ * @param inUse instances currently handed out.
+ * @param idle instances currently available for reuse.
+ * @param waitCount number of recorded {@code getBlocking} waits (successful or not).
+ * @param waitTotal sum of all recorded wait times.
+ * @param waitMax longest recorded wait time.
+ * @param waitTimeBucketsMillis inclusive upper bounds of the histogram buckets in milliseconds.
+ * @param waitTimeBucketCounts number of waits per bucket; has one more element than
+ *                             {@code waitTimeBucketsMillis} for the overflow bucket.
+ */
+public record PoolStatistics(
+        long created,
+        long acquired,
+        long evicted,
+        long closed,
+        long timeouts,
+        int inUse,
+        int idle,
+        long waitCount,
+        Duration waitTotal,
+        Duration waitMax,
+        List<Long> waitTimeBucketsMillis,
+        List<Long> waitTimeBucketCounts) {
+
+    public Duration waitMean() {
+        if (waitCount == 0L) {
+            return Duration.ZERO;
+        }
+
+        return waitTotal.dividedBy(waitCount);
+    }
+
+    /**
+     * Estimates a wait-time percentile from the histogram buckets.
+     *
+     * @param percentile the percentile between {@code 0.0} and {@code 1.0}, e.g. {@code 0.95}.
+     * @return the upper bound of the bucket containing the percentile, or {@link #waitMax()} if it
+     *         falls into the overflow bucket.
+     */
+    public Duration waitPercentile(double percentile) {
+        if (waitCount == 0L) {
+            return Duration.ZERO;
+        }
+
+        long threshold = (long) Math.ceil(waitCount * percentile);
+        long seen = 0L;
+
+        for (int bucket = 0; bucket < waitTimeBucketsMillis.size(); bucket++) {
+            seen += waitTimeBucketCounts.get(bucket);
+
+            if (seen >= threshold) {
+                return Duration.ofMillis(waitTimeBucketsMillis.get(bucket));
+            }
+        }
+
+        return waitMax;
+    }
+
+    public String toSummary() {
+        return String.format(
+                Locale.ROOT,
+                "created=%d, acquired=%d, evicted=%d, closed=%d, timeouts=%d, inUse=%d, idle=%d, "
+                        + "waits=%d, wait mean=%dms, p95<=%dms, max=%dms",
+                created,
+                acquired,
+                evicted,
+                closed,
+                timeouts,
+                inUse,
+                idle,
+                waitCount,
+                waitMean().toMillis(),
+                waitPercentile(0.95d).toMillis(),
+                waitMax.toMillis());
+    }
+}
@@ -63,10 +63,23 @@ public class PoorMansCache<T> implements AutoCloseable {
     private final List<Instance<T>> availableInstances = Collections.synchronizedList(new ArrayList<>());
     private final List<Instance<T>> usedInstances = Collections.synchronizedList(new ArrayList<>());
     private final AtomicBoolean interrupted = new AtomicBoolean(false);
+    private final PoolMetrics metrics;
 
     public PoorMansCache(int maxSize, Supplier<T> supplier) {
+        this(maxSize, supplier, new PoolMetrics());
+    }
+
+    /**
+     * Creates a cache which records its counters into the given metrics instance.
+     *
+     * @param maxSize the maximum number of instances (used and available).
+     * @param supplier creates new instances.
+     * @param metrics the metrics to record to. Can be shared between caches.
+     */
+    public PoorMansCache(int maxSize, Supplier<T> supplier, PoolMetrics metrics) {
         this.maxSize = maxSize;
         this.supplier = supplier;
+        this.metrics = metrics;
     }
 
     public synchronized Instance<T> get() {
@@ -80,6 +93,7 @@ public class PoorMansCache<T> implements AutoCloseable {
             // instance available
             Instance<T> usedInstance = availableInstances.removeLast();
             usedInstances.add(usedInstance);
+            this.metrics.recordAcquired(true);
 
             LOG.debug("returning available instance: {}", usedInstance);
 
@@ -91,6 +105,7 @@ public class PoorMansCache<T> implements AutoCloseable {
             // no available instance, but we can still create new ones
             InstanceImpl<T> instance = createInstance();
             this.usedInstances.add(instance);
+            this.metrics.recordAcquired(false);
 
             LOG.debug("returning new instance: {}", instance);
 
@@ -102,6 +117,7 @@ public class PoorMansCache<T> implements AutoCloseable {
 
     public Instance<T> getBlocking(Duration timeout, Duration waitTime) throws TimeoutException, InterruptedException {
         Instant start = Instant.now();
+        long startNanos = System.nanoTime();
 
         Instance<T> instance = get();
         while (instance == null && Instant.now().isBefore(start.plusSeconds(timeout.getSeconds()))) {
@@ -110,13 +126,17 @@ public class PoorMansCache<T> implements AutoCloseable {
             } catch (InterruptedException interruptedException) {
                 this.interrupted.set(true);
                 Thread.currentThread().interrupt();
+                this.metrics.recordWait(System.nanoTime() - startNanos);
                 throw interruptedException;
             }
 
             instance = get();
         }
 
+        this.metrics.recordWait(System.nanoTime() - startNanos);
+
         if (instance == null) {
+            this.metrics.recordTimeout();
             throw new TimeoutException("instance not available in time");
         }
 
@@ -132,15 +152,40 @@ public class PoorMansCache<T> implements AutoCloseable {
 
         T object = supplier.get();
         Instant now = Instant.now();
+        this.metrics.recordCreated();
 
         return new InstanceImpl<>(object, instanceNumber, now, this::closeInstance);
     }
 
     synchronized void closeInstance(Instance<T> instance) {
-        this.usedInstances.remove(instance);
+        if (!this.usedInstances.remove(instance)) {
+            // already discarded
+            return;
+        }
+
+        this.metrics.recordReleased();
         this.availableInstances.add(instance);
     }
 
+    /**
+     * Removes a broken instance from the cache instead of returning it for reuse.
+     * The underlying object is closed if it is {@link AutoCloseable}. Closing the given instance
+     * afterwards is a no-op.
+     *
+     * @param instance an instance previously obtained by {@link #get()} or {@link #getBlocking()}.
+     */
+    public synchronized void discard(Instance<T> instance) {
+        if (!this.usedInstances.remove(instance)) {
+            return;
+        }
+
+        LOG.debug("discarding instance: [{}].", instance);
+        // counts as released and evicted, so that inUse and idle stay balanced.
+        this.metrics.recordReleased();
+        this.metrics.recordEvicted();
+        closeQuietly(instance);
+    }
+
     synchronized void cleanUpOld() {
         if (this.interrupted.get()) {
             return;
@@ -149,11 +194,18 @@ public class PoorMansCache<T> implements AutoCloseable {
         this.availableInstances.removeIf(i -> {
             if (i instanceof InstanceImpl<?> instance) {
                 Instant fiveMinutesAgo = Instant.now().minusSeconds(300L);
+                boolean expired = instance.createdOn.isBefore(fiveMinutesAgo);
+
+                if (expired) {
+                    this.metrics.recordEvicted();
+                    closeQuietly(instance);
+                }
 
-                return instance.createdOn.isBefore(fiveMinutesAgo);
+                return expired;
             }
 
             // should never not contain an object other than InstanceImpl.
+            this.metrics.recordEvicted();
             return true;
         });
     }
@@ -163,16 +215,30 @@ public class PoorMansCache<T> implements AutoCloseable {
         return usedInstances.size() + availableInstances.size();
     }
 
+    /**
+     * Returns the metrics this cache records to.
+     *
+     * @return the (possibly shared) metrics of this cache.
+     */
+    public PoolMetrics getMetrics() {
+        return metrics;
+    }
+
     @Override
     public void close() throws IOException {
         for (Instance<T> availableInstance : this.availableInstances) {
-            T instance = availableInstance.instance();
-            if (instance instanceof AutoCloseable closeableInstance) {
-                try {
-                    closeableInstance.close();
-                } catch (Exception closeEx) {
-                    LOG.error("unable to close instance: [{}].", instance, closeEx);
-                }
+            this.metrics.recordClosed();
+            closeQuietly(availableInstance);
+        }
+    }
+
+    private static void closeQuietly(Instance<?> cachedInstance) {
+        Object instance = cachedInstance.instance();
+        if (instance instanceof AutoCloseable closeableInstance) {
+            try {
+                closeableInstance.close();
+            } catch (Exception closeEx) {
+                LOG.error("unable to close instance: [{}].", instance, closeEx);
             }
         }
     }
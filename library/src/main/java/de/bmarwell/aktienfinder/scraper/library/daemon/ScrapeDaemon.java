@@ -0,0 +1,307 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.library.daemon;
+
+import de.bmarwell.aktienfinder.scraper.library.export.ExportService;
+import de.bmarwell.aktienfinder.scraper.library.scrape.ScrapeService;
+import de.bmarwell.aktienfinder.scraper.value.AktienfinderStock;
+import de.bmarwell.aktienfinder.scraper.value.Isin;
+import de.bmarwell.aktienfinder.scraper.value.Stock;
+import jakarta.json.Json;
+import jakarta.json.JsonException;
+import jakarta.json.JsonObject;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.AsynchronousCloseException;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps a warm {@link ScrapeService} and serves {@link ScrapeRequest}s on a local Unix domain socket.
+ *
+ * <p>A CLI invocation otherwise pays for JVM startup, the Playwright driver and the browser launch before its
+ * first request. The daemon pays this once; later requests reuse the browsers of its {@link ScrapeService}.
+ * Use {@link ScrapeDaemonClient} to forward a request.</p>
+ *
+ * <p>Protocol: the client sends one line of JSON, the daemon answers with one line of JSON and closes the
+ * connection. Besides {@code scrape}, the command {@code stop} shuts the daemon down. Requests which are still
+ * running when the daemon stops are given {@link #SHUTDOWN_TIMEOUT} to finish.</p>
+ *
+ * <p>The socket file is only accessible by the owner where the file system supports POSIX permissions. A stale
+ * socket file left over by a crashed daemon is replaced on start.</p>
+ */
+public class ScrapeDaemon implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ScrapeDaemon.class);
+
+    /** How long a stopping daemon waits for running requests before it closes the {@link ScrapeService}. */
+    public static final Duration SHUTDOWN_TIMEOUT = Duration.ofMinutes(5);
+
+    private final Path socketPath;
+
+    private final ScrapeService scrapeService;
+
+    private final ExecutorService connectionExecutor = Executors.newCachedThreadPool((Runnable runnable) -> {
+        Thread thread = new Thread(runnable);
+        thread.setName(String.format("daemon-connection-%d", thread.threadId()));
+        return thread;
+    });
+
+    private ServerSocketChannel serverChannel;
+
+    private volatile boolean running;
+
+    public ScrapeDaemon(Path socketPath, ScrapeService scrapeService) {
+        this.socketPath = socketPath;
+        this.scrapeService = scrapeService;
+    }
+
+    /**
+     * The socket used if none is given: in {@code $XDG_RUNTIME_DIR} if set, otherwise in a per-user directory in
+     * the temporary directory, which {@link #run()} creates accessible by the owner only.
+     *
+     * @return the default socket path.
+     */
+    public static Path defaultSocketPath() {
+        String runtimeDirectory = System.getenv("XDG_RUNTIME_DIR");
+
+        if (runtimeDirectory != null && !runtimeDirectory.isBlank()) {
+            return Path.of(runtimeDirectory, "aktienfinder-scraper.sock");
+        }
+
+        return Path.of(
+                System.getProperty("java.io.tmpdir"),
+                "aktienfinder-" + System.getProperty("user.name", "default"),
+                "scraper.sock");
+    }
+
+    /**
+     * Binds the socket and serves requests until {@link #close()} is called or a {@code stop} request was received.
+     * Returns once the running requests are finished, or after {@link #SHUTDOWN_TIMEOUT}.
+     *
+     * @throws IOException if the socket cannot be bound.
+     */
+    public void run() throws IOException {
+        // a daemon which is still alive would answer; a file nobody listens on is left over from a crash.
+        if (ScrapeDaemonClient.connect(this.socketPath).isPresent()) {
+            throw new IOException("Another daemon is already listening on " + this.socketPath);
+        }
+        Files.deleteIfExists(this.socketPath);
+        createSocketDirectory();
+
+        this.serverChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        this.serverChannel.bind(UnixDomainSocketAddress.of(this.socketPath));
+        restrictToOwner();
+        this.running = true;
+
+        LOG.info("Daemon listening on [{}].", this.socketPath);
+
+        while (this.running) {
+            try {
+                SocketChannel connection = this.serverChannel.accept();
+                this.connectionExecutor.execute(() -> handle(connection));
+            } catch (AsynchronousCloseException closed) {
+                // close() was called.
+                break;
+            }
+        }
+
+        // the caller closes the scrape service once this returns, so running requests must be finished first.
+        awaitConnections();
+
+        LOG.info("Daemon on [{}] stopped.", this.socketPath);
+    }
+
+    /**
+     * Creates a missing socket directory accessible by the owner only, so nobody else can reach the socket while
+     * its own permissions are not yet restricted.
+     *
+     * @throws IOException if the directory cannot be created, or the default directory belongs to another user.
+     */
+    private void createSocketDirectory() throws IOException {
+        Path directory = this.socketPath.toAbsolutePath().getParent();
+
+        if (directory == null) {
+            return;
+        }
+
+        if (Files.isDirectory(directory)) {
+            // another user may have created the directory in the shared temporary directory to replace the socket.
+            if (this.socketPath.equals(defaultSocketPath()) && !isOwnedByCurrentUser(directory)) {
+                throw new IOException("Socket directory " + directory + " is not owned by the current user");
+            }
+
+            return;
+        }
+
+        try {
+            Files.createDirectories(
+                    directory,
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        } catch (UnsupportedOperationException noPosix) {
+            Files.createDirectories(directory);
+        }
+    }
+
+    /**
+     * Whether the given file is owned by the user running this process. A socket of another user could be a fake
+     * daemon, which would receive the requested ISINs and output paths.
+     *
+     * @param path an existing file.
+     * @return {@code true} if the owner of the file is the current user.
+     */
+    static boolean isOwnedByCurrentUser(Path path) {
+        try {
+            UserPrincipal currentUser = path.getFileSystem()
+                    .getUserPrincipalLookupService()
+                    .lookupPrincipalByName(System.getProperty("user.name"));
+
+            return currentUser.equals(Files.getOwner(path));
+        } catch (UnsupportedOperationException | IOException ownerException) {
+            LOG.warn("Unable to determine the owner of [{}].", path, ownerException);
+            return false;
+        }
+    }
+
+    private void restrictToOwner() {
+        try {
+            Files.setPosixFilePermissions(this.socketPath, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException | IOException permissionException) {
+            LOG.debug("Unable to restrict permissions of [{}].", this.socketPath, permissionException);
+        }
+    }
+
+    private void handle(SocketChannel connection) {
+        try (connection;
+                BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(Channels.newInputStream(connection), StandardCharsets.UTF_8));
+                Writer writer = new OutputStreamWriter(Channels.newOutputStream(connection), StandardCharsets.UTF_8)) {
+            Optional<JsonObject> request = readMessage(reader);
+
+            if (request.isEmpty()) {
+                writeMessage(writer, ScrapeResponse.failure("empty or malformed request").toJson());
+                return;
+            }
+
+            switch (request.get().getString("command", "")) {
+                case "scrape" -> writeMessage(writer, scrape(request.get()).toJson());
+                case "ping" -> writeMessage(writer, ScrapeResponse.success(0).toJson());
+                case "stop" -> {
+                    writeMessage(writer, ScrapeResponse.success(0).toJson());
+                    // waiting here would wait for this very connection; run() waits for the others.
+                    stopAccepting();
+                }
+                default -> writeMessage(writer, ScrapeResponse.failure("unknown command").toJson());
+            }
+        } catch (IOException ioException) {
+            LOG.warn("Problem serving a connection.", ioException);
+        }
+    }
+
+    private ScrapeResponse scrape(JsonObject requestJson) {
+        try {
+            ScrapeRequest request = ScrapeRequest.fromJson(requestJson);
+            List<Stock> stocks = request.isins().stream()
+                    .map(isin -> new Stock("", Isin.fromString(isin.strip()), Optional.empty()))
+                    .distinct()
+                    .toList();
+
+            LOG.info("Scraping [{}] stocks for [{}].", stocks.size(), request.outputFile());
+            List<AktienfinderStock> ratings = this.scrapeService.scrapeAll(stocks);
+
+            ExportService exportService = request.exportFormat().createExportService(request.sheetPerIndex());
+            exportService.export(ratings, request.outputFile());
+
+            return ScrapeResponse.success(ratings.size());
+        } catch (RuntimeException requestException) {
+            LOG.error("Unable to serve request [{}].", requestJson, requestException);
+            return ScrapeResponse.failure(requestException.getMessage());
+        }
+    }
+
+    static Optional<JsonObject> readMessage(BufferedReader reader) throws IOException {
+        String line = reader.readLine();
+
+        if (line == null || line.isBlank()) {
+            return Optional.empty();
+        }
+
+        try (var jsonReader = Json.createReader(new StringReader(line))) {
+            return Optional.of(jsonReader.readObject());
+        } catch (JsonException malformed) {
+            LOG.warn("Malformed message: [{}].", line, malformed);
+            return Optional.empty();
+        }
+    }
+
+    static void writeMessage(Writer writer, JsonObject message) throws IOException {
+        writer.write(message.toString());
+        writer.write('\n');
+        writer.flush();
+    }
+
+    @Override
+    public void close() {
+        stopAccepting();
+        awaitConnections();
+    }
+
+    private void stopAccepting() {
+        this.running = false;
+
+        if (this.serverChannel != null) {
+            try {
+                this.serverChannel.close();
+                Files.deleteIfExists(this.socketPath);
+            } catch (IOException ioException) {
+                LOG.debug("Problem closing [{}].", this.socketPath, ioException);
+            }
+        }
+
+        this.connectionExecutor.shutdown();
+    }
+
+    private void awaitConnections() {
+        try {
+            if (!this.connectionExecutor.awaitTermination(SHUTDOWN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                LOG.warn("Requests still running after [{}], stopping anyway.", SHUTDOWN_TIMEOUT);
+            }
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            LOG.warn("Interrupted while waiting for running requests.", interruptedException);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.library.daemon;
+
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Forwards requests to a running {@link ScrapeDaemon}.
+ *
+ * <p>Each request uses its own connection, so a client can be kept as long as the daemon runs.</p>
+ */
+public class ScrapeDaemonClient {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ScrapeDaemonClient.class);
+
+    private final Path socketPath;
+
+    private ScrapeDaemonClient(Path socketPath) {
+        this.socketPath = socketPath;
+    }
+
+    /**
+     * Checks whether a daemon is listening on the given socket.
+     *
+     * @param socketPath the socket of the daemon.
+     * @return a client, or empty if there is no socket file, it belongs to another user or nobody answers a ping.
+     */
+    public static Optional<ScrapeDaemonClient> connect(Path socketPath) {
+        if (!Files.exists(socketPath)) {
+            return Optional.empty();
+        }
+
+        if (!ScrapeDaemon.isOwnedByCurrentUser(socketPath)) {
+            LOG.warn("Ignoring [{}], it is not owned by the current user.", socketPath);
+            return Optional.empty();
+        }
+
+        ScrapeDaemonClient client = new ScrapeDaemonClient(socketPath);
+
+        try {
+            if (client.send(Json.createObjectBuilder().add("command", "ping").build()).successful()) {
+                return Optional.of(client);
+            }
+        } catch (IOException noDaemon) {
+            LOG.debug("No daemon listening on [{}].", socketPath, noDaemon);
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * Lets the daemon scrape and export the requested stocks. Blocks until the output file was written.
+     *
+     * @param request the stocks and output file.
+     * @return the answer of the daemon.
+     * @throws IOException if the daemon cannot be reached or closed the connection without answering.
+     */
+    public ScrapeResponse scrape(ScrapeRequest request) throws IOException {
+        return send(request.toJson());
+    }
+
+    /**
+     * Asks the daemon to shut down.
+     *
+     * @return the answer of the daemon.
+     * @throws IOException if the daemon cannot be reached.
+     */
+    public ScrapeResponse stop() throws IOException {
+        return send(Json.createObjectBuilder().add("command", "stop").build());
+    }
+
+    private ScrapeResponse send(JsonObject message) throws IOException {
+        try (SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            channel.connect(UnixDomainSocketAddress.of(this.socketPath));
+
+            Writer writer = new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8);
+            ScrapeDaemon.writeMessage(writer, message);
+
+            BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+
+            return ScrapeDaemon.readMessage(reader)
+                    .map(ScrapeResponse::fromJson)
+                    .orElseThrow(() -> new IOException("Daemon on " + this.socketPath + " did not answer."));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.library.daemon;
+
+import de.bmarwell.aktienfinder.scraper.library.export.ExportFormat;
+import jakarta.json.Json;
+import jakarta.json.JsonArrayBuilder;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonString;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * A request sent to the {@link ScrapeDaemon}: scrape the given ISINs and export them to a file.
+ *
+ * <p>The request is sent as a single line of JSON. The output file is resolved by the client, because the daemon
+ * runs in a different working directory.</p>
+ *
+ * @param isins the ISINs to scrape.
+ * @param outputFile the absolute path of the output file, written by the daemon.
+ * @param exportFormat the format of the output file.
+ * @param sheetPerIndex XLSX only: write one sheet per index plus a summary sheet.
+ */
+public record ScrapeRequest(List<String> isins, Path outputFile, ExportFormat exportFormat, boolean sheetPerIndex) {
+
+    public ScrapeRequest {
+        isins = List.copyOf(isins);
+        outputFile = outputFile.toAbsolutePath();
+    }
+
+    JsonObject toJson() {
+        JsonArrayBuilder isinArray = Json.createArrayBuilder();
+        isins.forEach(isinArray::add);
+
+        return Json.createObjectBuilder()
+                .add("command", "scrape")
+                .add("isins", isinArray)
+                .add("output", outputFile.toString())
+                .add("format", exportFormat.name())
+                .add("sheetPerIndex", sheetPerIndex)
+                .build();
+    }
+
+    static ScrapeRequest fromJson(JsonObject request) {
+        return new ScrapeRequest(
+                request.getJsonArray("isins").getValuesAs(JsonString::getString),
+                Path.of(request.getString("output")),
+                ExportFormat.valueOf(request.getString("format")),
+                request.getBoolean("sheetPerIndex", false));
+    }
+}
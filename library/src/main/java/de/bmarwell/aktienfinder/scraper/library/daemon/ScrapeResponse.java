@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.library.daemon;
+
+import jakarta.json.Json;
+import jakarta.json.JsonObject;
+
+/**
+ * The answer of the {@link ScrapeDaemon} to a {@link ScrapeRequest}, sent as a single line of JSON.
+ *
+ * @param successful whether the output file was written.
+ * @param exported number of stocks written to the output file.
+ * @param message an error message, or empty if successful.
+ */
+public record ScrapeResponse(boolean successful, int exported, String message) {
+
+    static ScrapeResponse success(int exported) {
+        return new ScrapeResponse(true, exported, "");
+    }
+
+    static ScrapeResponse failure(String message) {
+        return new ScrapeResponse(false, 0, message == null ? "unknown error" : message);
+    }
+
+    JsonObject toJson() {
+        return Json.createObjectBuilder()
+                .add("successful", successful)
+                .add("exported", exported)
+                .add("message", message)
+                .build();
+    }
+
+    static ScrapeResponse fromJson(JsonObject response) {
+        return new ScrapeResponse(
+                response.getBoolean("successful", false),
+                response.getInt("exported", 0),
+                response.getString("message", ""));
+    }
+}
@@ -15,20 +15,37 @@
  */
 package de.bmarwell.aktienfinder.scraper.library.download;
 
-import com.microsoft.playwright.Playwright;
-import de.bmarwell.aktienfinder.scraper.library.caching.PoorMansCache;
+import com.microsoft.playwright.Browser;
+import de.bmarwell.aktienfinder.scraper.library.browser.BrowserEngine;
+import de.bmarwell.aktienfinder.scraper.library.browser.BrowserKey;
+import de.bmarwell.aktienfinder.scraper.library.browser.BrowserPool;
+import de.bmarwell.aktienfinder.scraper.library.browser.BrowserPoolStatistics;
+import de.bmarwell.aktienfinder.scraper.library.caching.PoolMetrics;
+import de.bmarwell.aktienfinder.scraper.library.caching.PoolStatistics;
 import de.bmarwell.aktienfinder.scraper.library.caching.PoorMansCache.Instance;
+import de.bmarwell.aktienfinder.scraper.library.download.snapshot.IndexDiff;
+import de.bmarwell.aktienfinder.scraper.library.download.snapshot.IndexSnapshot;
+import de.bmarwell.aktienfinder.scraper.library.download.snapshot.IndexSnapshotStore;
+import de.bmarwell.aktienfinder.scraper.library.download.snapshot.StockFingerprint;
 import de.bmarwell.aktienfinder.scraper.library.scrape.ExecutorHelper;
+import de.bmarwell.aktienfinder.scraper.library.scrape.RunPhase;
+import de.bmarwell.aktienfinder.scraper.library.scrape.RunStatistics;
+import de.bmarwell.aktienfinder.scraper.library.scrape.RunStatisticsSnapshot;
 import de.bmarwell.aktienfinder.scraper.value.Stock;
+import java.io.IOException;
+import java.time.Instant;
 import java.util.ArrayList;
-import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
-import java.util.function.Supplier;
+import java.util.function.BiConsumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -38,47 +55,213 @@ public class DownloadListService implements AutoCloseable {
 
     private final ExecutorService executor = Executors.newWorkStealingPool(ExecutorHelper.getNumberThreads());
 
-    private final PoorMansCache<Playwright> browsers =
-            new PoorMansCache<>(ExecutorHelper.getNumberThreads(), playwrightCreator());
+    /** The browser used by all index scrapers. */
+    static final BrowserKey INDEX_BROWSER = BrowserKey.headless(BrowserEngine.CHROMIUM);
 
-    private Supplier<Playwright> playwrightCreator() {
-        return Playwright::create;
-    }
+    private final BrowserPool browsers;
+
+    private final Optional<IndexSnapshotStore> snapshotStore;
+
+    private final Queue<IndexDiff> indexDiffs = new ConcurrentLinkedQueue<>();
+
+    private final RunStatistics runStatistics = new RunStatistics();
 
     public DownloadListService() {
-        // config
+        this(new PoolMetrics());
+    }
+
+    public DownloadListService(PoolMetrics poolMetrics) {
+        this(poolMetrics, null);
     }
 
+    /**
+     * Creates a download service which keeps snapshots of each index.
+     *
+     * @param poolMetrics the metrics for the browser pool.
+     * @param snapshotStore the store for index snapshots. If {@code null}, every index is crawled completely
+     *                      on every download and no diffs are created.
+     */
+    public DownloadListService(PoolMetrics poolMetrics, IndexSnapshotStore snapshotStore) {
+        this.browsers =
+                new BrowserPool(Map.of(INDEX_BROWSER, ExecutorHelper.getNumberThreads()), 1, key -> poolMetrics);
+        this.snapshotStore = Optional.ofNullable(snapshotStore);
+    }
+
+    /**
+     * Downloads the stocks of all requested indices. Stocks contained in several indices are returned only once,
+     * with all index names joined in {@link Stock#index()}.
+     *
+     * @param stockDownloadOption the indices to download and the limit per index.
+     * @return one stock per ISIN.
+     */
     public List<Stock> downloadStocks(StockDownloadOption stockDownloadOption) {
-        Set<Stock> stocks = new LinkedHashSet<>();
-        List<Future<List<Stock>>> threads = new ArrayList<>();
+        return downloadMergedStocks(stockDownloadOption).stream()
+                .map(MergedStock::toStock)
+                .toList();
+    }
+
+    /**
+     * Downloads the stocks of all requested indices and merges them by ISIN.
+     *
+     * @param stockDownloadOption the indices to download and the limit per index.
+     * @return one entry per ISIN, including the set of indices it is a member of.
+     */
+    public List<MergedStock> downloadMergedStocks(StockDownloadOption stockDownloadOption) {
+        List<Stock> stocks = new ArrayList<>();
+        downloadStocks(stockDownloadOption, (stockIndex, indexStocks) -> stocks.addAll(indexStocks));
+
+        return StockMerger.mergeByIsin(stocks);
+    }
+
+    /**
+     * Downloads the stocks of all requested indices and hands over the stocks of each index as soon as its
+     * retriever finished, so that a slow index does not delay the others.
+     *
+     * <p>The consumer is called on the calling thread, in the order the indices complete. Stocks are not merged,
+     * i.e. a stock which is a member of several indices is passed once per index.</p>
+     *
+     * @param stockDownloadOption the indices to download and the limit per index.
+     * @param indexConsumer receives each index together with its stocks.
+     */
+    public void downloadStocks(
+            StockDownloadOption stockDownloadOption, BiConsumer<StockIndex, List<Stock>> indexConsumer) {
+        CompletionService<IndexResult> completionService = new ExecutorCompletionService<>(executor);
+        int submitted = 0;
 
         for (StockIndex stockIndex : stockDownloadOption.stockIndices()) {
-            Future<List<Stock>> future = executor.submit(() -> retrieve(stockIndex));
-            threads.add(future);
+            completionService.submit(() -> new IndexResult(stockIndex, retrieve(stockIndex, stockDownloadOption)));
+            submitted++;
+            this.runStatistics.recordSubmitted();
         }
+        this.runStatistics.recordInputComplete();
 
-        for (Future<List<Stock>> thread : threads) {
+        for (int completed = 0; completed < submitted; completed++) {
             try {
-                List<Stock> resultStocks = thread.get();
-                stocks.addAll(resultStocks);
-            } catch (InterruptedException | ExecutionException ex) {
-                LOG.error("Problem returning thread {}", thread, ex);
+                IndexResult result = completionService.take().get();
+                LOG.debug("Index [{}] completed with [{}] stocks.", result.stockIndex(), result.stocks().size());
+                indexConsumer.accept(result.stockIndex(), result.stocks());
+            } catch (InterruptedException interruptedException) {
+                Thread.currentThread().interrupt();
+                LOG.error(
+                        "Interrupted while waiting for [{}] remaining indices.",
+                        submitted - completed,
+                        interruptedException);
+                return;
+            } catch (ExecutionException ex) {
+                LOG.error("Problem retrieving index", ex);
             }
         }
-
-        return List.copyOf(stocks);
     }
 
-    private List<Stock> retrieve(StockIndex stockIndex) {
-        try (Instance<Playwright> playwrightInstance = browsers.getBlocking()) {
-            return stockIndex.getStockRetriever().getStocks(playwrightInstance.instance());
+    private List<Stock> retrieve(StockIndex stockIndex, StockDownloadOption stockDownloadOption) {
+        long downloadStart = System.nanoTime();
+
+        try (Instance<Browser> browser = browsers.getBlocking(INDEX_BROWSER)) {
+            List<Stock> stocks = this.snapshotStore.isEmpty()
+                    ? stockIndex.getStockRetriever().getStocks(browser.instance(), stockDownloadOption)
+                    : retrieveIncrementally(
+                            stockIndex, browser.instance(), stockDownloadOption, this.snapshotStore.get());
+
+            this.runStatistics.recordPhase(RunPhase.DOWNLOAD, downloadStart);
+            if (stocks.isEmpty()) {
+                this.runStatistics.recordFailure("EmptyIndex");
+            } else {
+                this.runStatistics.recordSuccess();
+            }
+
+            return stocks;
         } catch (Exception e) {
             LOG.error("Problem", e);
+            this.runStatistics.recordFailure(e);
             return List.of();
         }
     }
 
+    /**
+     * Reads the first page of the index and compares it to the latest snapshot. Only if it changed (or the snapshot
+     * is too old), the index is crawled completely and a new snapshot and diff are created.
+     */
+    private List<Stock> retrieveIncrementally(
+            StockIndex stockIndex,
+            Browser browser,
+            StockDownloadOption stockDownloadOption,
+            IndexSnapshotStore store)
+            throws IOException {
+        StockIndexStockRetriever retriever = stockIndex.getStockRetriever();
+        Optional<IndexSnapshot> previous = store.latest(stockIndex);
+
+        if (previous.isPresent() && store.isReusable(previous.get())) {
+            List<Stock> probe = retriever.getStocks(browser, StockFingerprint.probeOption());
+
+            if (StockFingerprint.probe(probe).equals(previous.get().probeFingerprint())) {
+                LOG.info(
+                        "Index [{}] unchanged since [{}], skipping full crawl.", stockIndex, previous.get().takenAt());
+                return stockDownloadOption.limit(previous.get().stocks());
+            }
+        }
+
+        List<Stock> stocks = retriever.getStocks(browser, stockDownloadOption);
+
+        if (stocks.isEmpty() || stockDownloadOption.isLimitReached(stocks.size())) {
+            // failed or truncated crawls would show up as removed members.
+            return stocks;
+        }
+
+        IndexSnapshot current = IndexSnapshot.of(stockIndex, Instant.now(), stocks);
+
+        if (previous.isPresent() && previous.get().contentHash().equals(current.contentHash())) {
+            // same members: only keep versions which differ, but restart the max age.
+            store.replace(previous.get(), current);
+            LOG.info(
+                    "Index [{}] crawled completely, members unchanged since [{}].",
+                    stockIndex,
+                    previous.get().takenAt());
+            return stocks;
+        }
+
+        store.save(current);
+
+        IndexDiff diff = IndexDiff.between(previous, current);
+        if (!diff.isEmpty()) {
+            LOG.info(
+                    "Index [{}] changed: [{}] added, [{}] removed.",
+                    stockIndex,
+                    diff.added().size(),
+                    diff.removed().size());
+            this.indexDiffs.add(diff);
+        }
+
+        return stocks;
+    }
+
+    /**
+     * Returns the membership changes detected by all downloads of this service so far.
+     *
+     * @return one diff per changed index; empty if no snapshot store is configured.
+     */
+    public List<IndexDiff> getIndexDiffs() {
+        return List.copyOf(this.indexDiffs);
+    }
+
+    public PoolStatistics getPoolStatistics() {
+        return this.browsers.getPoolStatistics(INDEX_BROWSER);
+    }
+
+    /**
+     * Returns the progress, download latencies and failures of all indices read by this service so far.
+     *
+     * @return a snapshot counting indices, not stocks.
+     */
+    public RunStatisticsSnapshot getRunStatistics() {
+        return this.runStatistics.snapshot(getPoolStatistics(), ExecutorHelper.getNumberThreads());
+    }
+
+    public List<BrowserPoolStatistics> getBrowserPoolStatistics() {
+        return this.browsers.getStatistics();
+    }
+
+    private record IndexResult(StockIndex stockIndex, List<Stock> stocks) {}
+
     @Override
     public void close() throws Exception {
         executor.shutdown();
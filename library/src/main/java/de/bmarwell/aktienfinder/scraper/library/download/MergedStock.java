@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.library.download;
+
+import de.bmarwell.aktienfinder.scraper.value.Isin;
+import de.bmarwell.aktienfinder.scraper.value.Stock;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * A security identified by its ISIN, together with all indices it was found in.
+ *
+ * <p>Different sources spell the name of the same security differently (e.g. comdirect vs. wallstreet-online),
+ * so only the ISIN is used to identify it. The first non-blank name wins.</p>
+ *
+ * @param name the name of the stock, as read from the first source which provided one.
+ * @param isin the ISIN of the stock.
+ * @param indices the names of all indices the stock is a member of, in the order they were found.
+ */
+public record MergedStock(String name, Isin isin, Set<String> indices) {
+
+    public MergedStock {
+        indices = Collections.unmodifiableSet(new LinkedHashSet<>(indices));
+    }
+
+    public static MergedStock of(Stock stock) {
+        return new MergedStock(stock.name(), stock.isin(), stock.index().map(Set::of).orElse(Set.of()));
+    }
+
+    /**
+     * Combines this entry with another entry of the same ISIN.
+     *
+     * @param other another entry with the same ISIN.
+     * @return a new entry containing the index memberships of both.
+     * @throws IllegalArgumentException if the ISINs differ.
+     */
+    public MergedStock merge(MergedStock other) {
+        if (!this.isin.equals(other.isin())) {
+            throw new IllegalArgumentException("Cannot merge different ISINs: " + this.isin + " and " + other.isin());
+        }
+
+        String mergedName = this.name == null || this.name.isBlank() ? other.name() : this.name;
+        Set<String> mergedIndices = new LinkedHashSet<>(this.indices);
+        mergedIndices.addAll(other.indices());
+
+        return new MergedStock(mergedName, this.isin, mergedIndices);
+    }
+
+    /**
+     * Converts this entry back to a {@link Stock}, joining all index names with {@code ", "}.
+     *
+     * @return a stock with all index memberships in its index field.
+     */
+    public Stock toStock() {
+        if (indices.isEmpty()) {
+            return new Stock(name, isin, Optional.empty());
+        }
+
+        return new Stock(name, isin, Optional.of(String.join(", ", indices)));
+    }
+}
@@ -17,4 +17,37 @@ package de.bmarwell.aktienfinder.scraper.library.download;
 
 import java.util.List;
 
-public record StockDownloadOption(List<StockIndex> stockIndices, int resultsPerSource) {}
+/**
+ * Options for downloading stock lists.
+ *
+ * @param stockIndices the indices to download.
+ * @param resultsPerSource the maximum number of stocks to read from each index. Retrievers stop paginating
+ *                         once this limit is reached. Values below {@code 1} mean no limit.
+ */
+public record StockDownloadOption(List<StockIndex> stockIndices, int resultsPerSource) {
+
+    /**
+     * Checks whether a retriever may stop reading further stocks.
+     *
+     * @param stocksRead the number of stocks read so far from a single source.
+     * @return {@code true} if at least {@link #resultsPerSource()} stocks were read.
+     */
+    public boolean isLimitReached(int stocksRead) {
+        return resultsPerSource > 0 && stocksRead >= resultsPerSource;
+    }
+
+    /**
+     * Cuts the given list of stocks from a single source to at most {@link #resultsPerSource()} elements.
+     *
+     * @param stocks the stocks read from a single source.
+     * @param <T> the element type.
+     * @return an immutable copy, shortened to the limit if necessary.
+     */
+    public <T> List<T> limit(List<T> stocks) {
+        if (!isLimitReached(stocks.size())) {
+            return List.copyOf(stocks);
+        }
+
+        return List.copyOf(stocks.subList(0, resultsPerSource));
+    }
+}
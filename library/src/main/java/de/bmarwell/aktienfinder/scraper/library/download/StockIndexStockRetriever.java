@@ -15,7 +15,7 @@
  */
 package de.bmarwell.aktienfinder.scraper.library.download;
 
-import com.microsoft.playwright.Playwright;
+import com.microsoft.playwright.Browser;
 import de.bmarwell.aktienfinder.scraper.value.Stock;
 import java.util.List;
 
@@ -23,5 +23,14 @@ public interface StockIndexStockRetriever {
 
     String getName();
 
-    List<Stock> getStocks(Playwright blocking);
+    /**
+     * Reads all stocks of this index.
+     *
+     * @param browser a pooled browser. Implementations should open (and close) their own context on it,
+     *                but must not close the browser itself.
+     * @param stockDownloadOption the download options. Implementations should stop reading further pages
+     *                            once {@link StockDownloadOption#isLimitReached(int)} returns {@code true}.
+     * @return the stocks of this index, at most {@link StockDownloadOption#resultsPerSource()}.
+     */
+    List<Stock> getStocks(Browser browser, StockDownloadOption stockDownloadOption);
 }
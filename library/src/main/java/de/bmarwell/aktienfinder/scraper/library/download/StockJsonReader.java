@@ -0,0 +1,262 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.library.download;
+
+import de.bmarwell.aktienfinder.scraper.value.AktienfinderStock;
+import de.bmarwell.aktienfinder.scraper.value.Isin;
+import de.bmarwell.aktienfinder.scraper.value.Stock;
+import jakarta.json.Json;
+import jakarta.json.JsonArray;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
+import jakarta.json.stream.JsonParser;
+import jakarta.json.stream.JsonParsingException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads stock lists as written by the {@code download} command lazily, using a streaming {@link JsonParser}.
+ *
+ * <p>Only the current entry is held in memory, so scraping can start as soon as the first stock was read.
+ * Both a document of the form {@code {"results": [...]}} and a plain top-level array of stocks are accepted.
+ * Several files are read one after another.</p>
+ *
+ * <p>The {@code download} command writes each stock only once, with the index which completed first, and lists
+ * all memberships in the trailing {@code indices} object. This object is collected when the parser reaches it,
+ * see {@link #getIndexMemberships()}. Merge it into the results before exporting them, e.g. with
+ * {@link StockMerger#withAllIndices(AktienfinderStock, Map)}.</p>
+ *
+ * <p>Entries without a valid ISIN are logged and skipped. Missing or {@code null} names and indices are treated
+ * as empty.</p>
+ */
+public class StockJsonReader implements Iterator<Stock>, AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StockJsonReader.class);
+
+    private static final String RESULTS = "results";
+
+    private static final String INDICES = "indices";
+
+    private final Deque<Path> remainingFiles;
+
+    private final Map<Isin, MergedStock> indexMemberships = new HashMap<>();
+
+    private Path currentFile;
+
+    private InputStream currentStream;
+
+    private JsonParser parser;
+
+    private int depth;
+
+    private boolean inResults;
+
+    private String currentKey;
+
+    private Stock next;
+
+    public StockJsonReader(List<Path> inputFiles) {
+        this.remainingFiles = new ArrayDeque<>(inputFiles);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (this.next == null) {
+            this.next = readNext();
+        }
+
+        return this.next != null;
+    }
+
+    @Override
+    public Stock next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        Stock stock = this.next;
+        this.next = null;
+
+        return stock;
+    }
+
+    private Stock readNext() {
+        while (this.parser != null || openNextFile()) {
+            Stock stock = readNextFromCurrentFile();
+
+            if (stock != null) {
+                return stock;
+            }
+
+            closeCurrentFile();
+        }
+
+        return null;
+    }
+
+    private Stock readNextFromCurrentFile() {
+        try {
+            while (this.parser.hasNext()) {
+                JsonParser.Event event = this.parser.next();
+
+                switch (event) {
+                    case KEY_NAME -> this.currentKey = this.parser.getString();
+                    case START_OBJECT -> {
+                        if (this.inResults) {
+                            Optional<Stock> stock = toStock(this.parser.getObject());
+
+                            if (stock.isPresent()) {
+                                return stock.get();
+                            }
+                        } else if (this.depth == 0) {
+                            this.depth = 1;
+                        } else if (this.depth == 1 && INDICES.equals(this.currentKey)) {
+                            addMemberships(this.parser.getObject());
+                        } else {
+                            this.parser.skipObject();
+                        }
+                    }
+                    case START_ARRAY -> {
+                        if (this.depth == 0 || (this.depth == 1 && RESULTS.equals(this.currentKey))) {
+                            this.depth++;
+                            this.inResults = true;
+                        } else {
+                            this.parser.skipArray();
+                        }
+                    }
+                    case END_ARRAY, END_OBJECT -> {
+                        this.depth--;
+                        this.inResults = false;
+                    }
+                    default -> {
+                        // scalar values outside of stock entries are ignored.
+                    }
+                }
+            }
+        } catch (JsonParsingException parsingException) {
+            LOG.error("Unable to parse [{}], skipping the rest of the file.", this.currentFile, parsingException);
+        }
+
+        return null;
+    }
+
+    /**
+     * The index memberships listed in the {@code indices} objects read so far.
+     *
+     * <p>The {@code indices} object follows the results, so the memberships are only complete once all stocks
+     * were read.</p>
+     *
+     * @return the memberships by ISIN. The entries have no name.
+     */
+    public Map<Isin, MergedStock> getIndexMemberships() {
+        return Collections.unmodifiableMap(this.indexMemberships);
+    }
+
+    private Optional<Stock> toStock(JsonObject stockObject) {
+        String index = stockObject.getString("index", "");
+
+        try {
+            return Optional.of(new Stock(
+                    stockObject.getString("name", ""),
+                    Isin.fromString(stockObject.getString("isin", "")),
+                    index.isBlank() ? Optional.empty() : Optional.of(index)));
+        } catch (IllegalArgumentException invalidIsin) {
+            LOG.warn("Skipping entry with invalid ISIN in [{}]: [{}].", this.currentFile, stockObject, invalidIsin);
+            return Optional.empty();
+        }
+    }
+
+    private void addMemberships(JsonObject indices) {
+        for (Map.Entry<String, JsonValue> indexMembers : indices.entrySet()) {
+            if (!(indexMembers.getValue() instanceof JsonArray members)) {
+                continue;
+            }
+
+            String indexName = indexMembers.getKey();
+
+            for (JsonValue member : members) {
+                if (!(member instanceof JsonString isin)) {
+                    continue;
+                }
+
+                try {
+                    MergedStock membership = new MergedStock("", Isin.fromString(isin.getString()), Set.of(indexName));
+                    this.indexMemberships.merge(membership.isin(), membership, MergedStock::merge);
+                } catch (IllegalArgumentException invalidIsin) {
+                    LOG.debug("Skipping invalid ISIN [{}] of index [{}].", isin.getString(), indexName);
+                }
+            }
+        }
+    }
+
+    private boolean openNextFile() {
+        Path file = this.remainingFiles.poll();
+
+        if (file == null) {
+            return false;
+        }
+
+        try {
+            this.currentFile = file;
+            this.currentStream = Files.newInputStream(file);
+            this.parser = Json.createParser(this.currentStream);
+            this.depth = 0;
+            this.inResults = false;
+            this.currentKey = null;
+
+            return true;
+        } catch (IOException ioException) {
+            throw new UncheckedIOException("Unable to read " + file, ioException);
+        }
+    }
+
+    private void closeCurrentFile() {
+        if (this.parser == null) {
+            return;
+        }
+
+        this.parser.close();
+        this.parser = null;
+
+        try {
+            this.currentStream.close();
+        } catch (IOException ioException) {
+            LOG.debug("Problem closing [{}].", this.currentFile, ioException);
+        }
+    }
+
+    @Override
+    public void close() {
+        closeCurrentFile();
+        this.remainingFiles.clear();
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.library.download;
+
+import de.bmarwell.aktienfinder.scraper.value.AktienfinderStock;
+import de.bmarwell.aktienfinder.scraper.value.Isin;
+import de.bmarwell.aktienfinder.scraper.value.Stock;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Merges stock lists from several sources by ISIN, so that each security is only scraped once.
+ */
+public final class StockMerger {
+
+    private StockMerger() {
+        // utility
+    }
+
+    /**
+     * Merges the given stocks by ISIN, keeping the order of first occurrence.
+     *
+     * @param stocks stocks from any number of indices, possibly containing the same ISIN several times.
+     * @return one entry per ISIN with all index memberships.
+     */
+    public static List<MergedStock> mergeByIsin(Collection<Stock> stocks) {
+        Map<Isin, MergedStock> merged = new LinkedHashMap<>();
+
+        for (Stock stock : stocks) {
+            merged.merge(stock.isin(), MergedStock.of(stock), MergedStock::merge);
+        }
+
+        return List.copyOf(merged.values());
+    }
+
+    /**
+     * Merges the given stocks by ISIN and converts them back to stocks.
+     *
+     * @param stocks stocks from any number of indices, possibly containing the same ISIN several times.
+     * @return one stock per ISIN, with all index names joined in {@link Stock#index()}.
+     */
+    public static List<Stock> deduplicateByIsin(Collection<Stock> stocks) {
+        return mergeByIsin(stocks).stream().map(MergedStock::toStock).toList();
+    }
+
+    /**
+     * Adds the given index memberships to the stock of a result.
+     *
+     * @param rating a scraped stock.
+     * @param indexMemberships all index memberships by ISIN.
+     * @return the result with all indices of its stock, or the given result if there are no memberships for it.
+     */
+    public static AktienfinderStock withAllIndices(AktienfinderStock rating, Map<Isin, MergedStock> indexMemberships) {
+        MergedStock memberships = indexMemberships.get(rating.stock().isin());
+
+        if (memberships == null) {
+            return rating;
+        }
+
+        Stock stock = MergedStock.of(rating.stock()).merge(memberships).toStock();
+
+        return new AktienfinderStock(stock, rating.stockBewertung(), rating.stockFazit(), rating.finanzenNetRisiko());
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.library.download.snapshot;
+
+import de.bmarwell.aktienfinder.scraper.library.download.StockIndex;
+import de.bmarwell.aktienfinder.scraper.value.Isin;
+import de.bmarwell.aktienfinder.scraper.value.Stock;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Members added to and removed from an index between two snapshots.
+ *
+ * @param stockIndex the index.
+ * @param previous when the previous snapshot was taken, empty if there was none.
+ * @param current when the current snapshot was taken.
+ * @param added stocks which are new in the current snapshot. Contains all stocks if there was no previous snapshot.
+ * @param removed stocks which are no longer a member.
+ */
+public record IndexDiff(
+        StockIndex stockIndex, Optional<Instant> previous, Instant current, List<Stock> added, List<Stock> removed) {
+
+    public IndexDiff {
+        added = List.copyOf(added);
+        removed = List.copyOf(removed);
+    }
+
+    public static IndexDiff between(Optional<IndexSnapshot> previous, IndexSnapshot current) {
+        List<Stock> previousStocks = previous.map(IndexSnapshot::stocks).orElse(List.of());
+        Set<Isin> previousIsins = previousStocks.stream().map(Stock::isin).collect(Collectors.toSet());
+        Set<Isin> currentIsins = current.stocks().stream().map(Stock::isin).collect(Collectors.toSet());
+
+        List<Stock> added = current.stocks().stream()
+                .filter(stock -> !previousIsins.contains(stock.isin()))
+                .toList();
+        List<Stock> removed = previousStocks.stream()
+                .filter(stock -> !currentIsins.contains(stock.isin()))
+                .toList();
+
+        return new IndexDiff(
+                current.stockIndex(), previous.map(IndexSnapshot::takenAt), current.takenAt(), added, removed);
+    }
+
+    public boolean isEmpty() {
+        return this.added.isEmpty() && this.removed.isEmpty();
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.library.download.snapshot;
+
+import de.bmarwell.aktienfinder.scraper.library.download.StockIndex;
+import de.bmarwell.aktienfinder.scraper.value.Stock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * The constituents of an index at a given point in time.
+ *
+ * @param stockIndex the index.
+ * @param takenAt when the index was crawled.
+ * @param probeFingerprint hash of the first stocks, see {@link StockFingerprint#probe(List)}.
+ * @param contentHash hash of all ISINs, see {@link StockFingerprint#content(java.util.Collection)}.
+ * @param stocks all constituents in the order they were read.
+ */
+public record IndexSnapshot(
+        StockIndex stockIndex, Instant takenAt, String probeFingerprint, String contentHash, List<Stock> stocks) {
+
+    public IndexSnapshot {
+        stocks = List.copyOf(stocks);
+    }
+
+    public static IndexSnapshot of(StockIndex stockIndex, Instant takenAt, List<Stock> stocks) {
+        return new IndexSnapshot(
+                stockIndex, takenAt, StockFingerprint.probe(stocks), StockFingerprint.content(stocks), stocks);
+    }
+
+    public boolean isOlderThan(Duration maxAge, Instant now) {
+        return this.takenAt.plus(maxAge).isBefore(now);
+    }
+}
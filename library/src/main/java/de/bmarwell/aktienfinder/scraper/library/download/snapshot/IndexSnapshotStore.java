@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.library.download.snapshot;
+
+import de.bmarwell.aktienfinder.scraper.library.download.StockIndex;
+import de.bmarwell.aktienfinder.scraper.value.Isin;
+import de.bmarwell.aktienfinder.scraper.value.Stock;
+import jakarta.json.Json;
+import jakarta.json.JsonArrayBuilder;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonValue;
+import jakarta.json.JsonWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stores versioned snapshots of index constituents on the local file system.
+ *
+ * <p>Layout: {@code <directory>/<INDEX>/<epoch millis>.json}, one file per distinct membership. Only the latest
+ * {@link #RETAINED_VERSIONS} snapshots per index are kept.</p>
+ *
+ * <p>Snapshots younger than {@link #maxAge()} may be reused if a probe of the first page still matches.
+ * Older snapshots always require a full crawl, so changes beyond the first page are picked up eventually.</p>
+ */
+public class IndexSnapshotStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(IndexSnapshotStore.class);
+
+    static final int RETAINED_VERSIONS = 10;
+
+    private static final String SUFFIX = ".json";
+
+    private final Path directory;
+
+    private final Duration maxAge;
+
+    public IndexSnapshotStore(Path directory, Duration maxAge) {
+        this.directory = directory;
+        this.maxAge = maxAge;
+    }
+
+    public Duration maxAge() {
+        return maxAge;
+    }
+
+    /**
+     * Checks whether the snapshot may be reused after a matching probe.
+     *
+     * @param snapshot a snapshot from this store.
+     * @return {@code true} if the snapshot is not older than {@link #maxAge()}.
+     */
+    public boolean isReusable(IndexSnapshot snapshot) {
+        return !snapshot.isOlderThan(this.maxAge, Instant.now());
+    }
+
+    /**
+     * Reads the most recent snapshot of the given index.
+     *
+     * @param stockIndex the index to look up.
+     * @return the latest snapshot, or empty if there is none or it cannot be read.
+     */
+    public Optional<IndexSnapshot> latest(StockIndex stockIndex) {
+        List<Path> versions = versions(stockIndex);
+
+        if (versions.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Path latest = versions.getLast();
+
+        try (InputStream inputStream = Files.newInputStream(latest);
+                JsonReader jsonReader = Json.createReader(inputStream)) {
+            return Optional.of(fromJson(stockIndex, jsonReader.readObject()));
+        } catch (IOException | RuntimeException ex) {
+            LOG.warn("Unable to read snapshot [{}], ignoring it.", latest, ex);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Writes a new version and removes versions exceeding {@link #RETAINED_VERSIONS}.
+     *
+     * @param snapshot the snapshot to store.
+     * @throws IOException if the snapshot could not be written.
+     */
+    public void save(IndexSnapshot snapshot) throws IOException {
+        write(snapshot);
+        prune(snapshot.stockIndex());
+    }
+
+    /**
+     * Replaces a version by a newer crawl with the same members, so its age is reset without pushing an older,
+     * different version out of the {@link #RETAINED_VERSIONS}.
+     *
+     * @param previous the latest snapshot, as returned by {@link #latest(StockIndex)}.
+     * @param current a newer snapshot of the same index with the same {@link IndexSnapshot#contentHash()}.
+     * @throws IOException if the snapshot could not be written.
+     */
+    public void replace(IndexSnapshot previous, IndexSnapshot current) throws IOException {
+        write(current);
+
+        Path previousFile = file(previous);
+        if (!previousFile.equals(file(current))) {
+            Files.deleteIfExists(previousFile);
+        }
+    }
+
+    private void write(IndexSnapshot snapshot) throws IOException {
+        Path indexDirectory = this.directory.resolve(snapshot.stockIndex().name());
+        Files.createDirectories(indexDirectory);
+
+        Path target = file(snapshot);
+        Path temp = Files.createTempFile(indexDirectory, snapshot.stockIndex().name(), ".tmp");
+
+        try (OutputStream outputStream = Files.newOutputStream(temp);
+                JsonWriter jsonWriter = Json.createWriter(outputStream)) {
+            jsonWriter.writeObject(toJson(snapshot));
+        }
+
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        LOG.debug("Saved snapshot of index [{}] to [{}].", snapshot.stockIndex(), target);
+    }
+
+    private Path file(IndexSnapshot snapshot) {
+        return this.directory
+                .resolve(snapshot.stockIndex().name())
+                .resolve(snapshot.takenAt().toEpochMilli() + SUFFIX);
+    }
+
+    private void prune(StockIndex stockIndex) throws IOException {
+        List<Path> versions = versions(stockIndex);
+
+        for (int version = 0; version < versions.size() - RETAINED_VERSIONS; version++) {
+            Files.deleteIfExists(versions.get(version));
+        }
+    }
+
+    private List<Path> versions(StockIndex stockIndex) {
+        Path indexDirectory = this.directory.resolve(stockIndex.name());
+
+        if (!Files.isDirectory(indexDirectory)) {
+            return List.of();
+        }
+
+        try (Stream<Path> files = Files.list(indexDirectory)) {
+            return files.filter(file -> file.getFileName().toString().matches("[0-9]+\\" + SUFFIX))
+                    .sorted(Comparator.comparingLong(IndexSnapshotStore::epochMillis))
+                    .toList();
+        } catch (IOException ioException) {
+            throw new UncheckedIOException(ioException);
+        }
+    }
+
+    private static long epochMillis(Path file) {
+        String fileName = file.getFileName().toString();
+
+        return Long.parseLong(fileName.substring(0, fileName.length() - SUFFIX.length()));
+    }
+
+    private static JsonObject toJson(IndexSnapshot snapshot) {
+        JsonArrayBuilder stocks = Json.createArrayBuilder();
+
+        for (Stock stock : snapshot.stocks()) {
+            stocks.add(Json.createObjectBuilder()
+                    .add("name", stock.name())
+                    .add("isin", stock.isin().value())
+                    .add("index", stock.index().orElse("")));
+        }
+
+        return Json.createObjectBuilder()
+                .add("index", snapshot.stockIndex().name())
+                .add("takenAt", snapshot.takenAt().toString())
+                .add("probeFingerprint", snapshot.probeFingerprint())
+                .add("contentHash", snapshot.contentHash())
+                .add("stocks", stocks)
+                .build();
+    }
+
+    private static IndexSnapshot fromJson(StockIndex stockIndex, JsonObject jsonObject) {
+        List<Stock> stocks = new ArrayList<>();
+
+        for (JsonValue value : jsonObject.getJsonArray("stocks")) {
+            JsonObject stockObject = value.asJsonObject();
+            String index = stockObject.getString("index", "");
+
+            stocks.add(new Stock(
+                    stockObject.getString("name", ""),
+                    Isin.fromString(stockObject.getString("isin")),
+                    index.isBlank() ? Optional.empty() : Optional.of(index)));
+        }
+
+        return new IndexSnapshot(
+                stockIndex,
+                Instant.parse(jsonObject.getString("takenAt")),
+                jsonObject.getString("probeFingerprint"),
+                jsonObject.getString("contentHash"),
+                stocks);
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.library.download.snapshot;
+
+import de.bmarwell.aktienfinder.scraper.library.download.StockDownloadOption;
+import de.bmarwell.aktienfinder.scraper.value.Stock;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Hashes lists of index constituents.
+ *
+ * <p>Only ISINs are hashed. Names are spelled differently from run to run (e.g. abbreviations of legal forms),
+ * which is not a change in membership.</p>
+ */
+public final class StockFingerprint {
+
+    /** The number of stocks read to detect changes without crawling the whole index. */
+    static final int PROBE_SIZE = 10;
+
+    private StockFingerprint() {
+        // utility
+    }
+
+    /**
+     * Download options which only read the first few stocks of an index, i.e. usually only the first page.
+     *
+     * @return options limited to {@link #PROBE_SIZE} results.
+     */
+    public static StockDownloadOption probeOption() {
+        return new StockDownloadOption(List.of(), PROBE_SIZE);
+    }
+
+    /**
+     * Hashes the ISINs of the first {@link #PROBE_SIZE} stocks in the order given.
+     *
+     * @param stocks the stocks as read from the index, a full crawl or a probe.
+     * @return a hex-encoded SHA-256 hash.
+     */
+    public static String probe(List<Stock> stocks) {
+        return hash(stocks.subList(0, Math.min(PROBE_SIZE, stocks.size())));
+    }
+
+    /**
+     * Hashes all ISINs, independent of their order.
+     *
+     * @param stocks all constituents of an index.
+     * @return a hex-encoded SHA-256 hash.
+     */
+    public static String content(Collection<Stock> stocks) {
+        return hash(stocks.stream()
+                .sorted((first, second) -> first.isin().value().compareTo(second.isin().value()))
+                .toList());
+    }
+
+    private static String hash(List<Stock> stocks) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+
+            for (Stock stock : stocks) {
+                digest.update(stock.isin().value().getBytes(StandardCharsets.US_ASCII));
+                digest.update((byte) '\n');
+            }
+
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException nsae) {
+            throw new IllegalStateException("SHA-256 not available", nsae);
+        }
+    }
+}
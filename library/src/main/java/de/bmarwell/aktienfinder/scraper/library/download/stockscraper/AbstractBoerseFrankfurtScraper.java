@@ -16,11 +16,12 @@
 package de.bmarwell.aktienfinder.scraper.library.download.stockscraper;
 
 import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.BrowserContext;
 import com.microsoft.playwright.ElementHandle;
 import com.microsoft.playwright.Locator;
 import com.microsoft.playwright.Page;
-import com.microsoft.playwright.Playwright;
 import com.microsoft.playwright.Response;
+import de.bmarwell.aktienfinder.scraper.library.download.StockDownloadOption;
 import de.bmarwell.aktienfinder.scraper.library.download.StockIndexStockRetriever;
 import de.bmarwell.aktienfinder.scraper.library.scrape.DomHelper;
 import de.bmarwell.aktienfinder.scraper.value.Isin;
@@ -43,11 +44,11 @@ public abstract class AbstractBoerseFrankfurtScraper implements StockIndexStockR
     public abstract URI uri();
 
     @Override
-    public List<Stock> getStocks(Playwright blocking) {
+    public List<Stock> getStocks(Browser browser, StockDownloadOption stockDownloadOption) {
         List<Stock> stocks = new ArrayList<>();
 
-        try (Browser browser = blocking.chromium().launch()) {
-            Page page = browser.newPage();
+        try (BrowserContext context = browser.newContext()) {
+            Page page = context.newPage();
             Response navigation = page.navigate(uri().toString());
             navigation.finished();
 
@@ -66,12 +67,16 @@ public abstract class AbstractBoerseFrankfurtScraper implements StockIndexStockR
                 LOG.debug("Reading from page #{}", pageNumber);
                 extractFromCurrentPage(page, stocks);
 
+                if (stockDownloadOption.isLimitReached(stocks.size())) {
+                    break;
+                }
+
                 nextArrow = page.querySelector(
                         "app-page-bar div.page-bar-row div.ng-star-inserted button.page-bar-type-button.btn.btn-lg span.icon-arrow-step-right-grey-big");
             } while (nextArrow != null && nextArrow.asElement().isEnabled());
         }
 
-        return List.copyOf(stocks);
+        return stockDownloadOption.limit(stocks);
     }
 
     private void extractFromCurrentPage(Page page, List<Stock> stocks) {
@@ -19,9 +19,9 @@ import com.microsoft.playwright.Browser;
 import com.microsoft.playwright.BrowserContext;
 import com.microsoft.playwright.ElementHandle;
 import com.microsoft.playwright.Page;
-import com.microsoft.playwright.Playwright;
 import com.microsoft.playwright.Response;
 import com.microsoft.playwright.options.ElementState;
+import de.bmarwell.aktienfinder.scraper.library.download.StockDownloadOption;
 import de.bmarwell.aktienfinder.scraper.library.download.StockIndexStockRetriever;
 import de.bmarwell.aktienfinder.scraper.library.scrape.DomHelper;
 import de.bmarwell.aktienfinder.scraper.value.Isin;
@@ -63,11 +63,10 @@ public abstract class AbstractComDirectScraper extends AbstractPaginatableScrape
     }
 
     @Override
-    public List<Stock> getStocks(Playwright blocking) {
+    public List<Stock> getStocks(Browser browser, StockDownloadOption stockDownloadOption) {
         List<Stock> stocks = new ArrayList<>();
 
-        try (Browser browser = blocking.chromium().launch();
-                BrowserContext context = browser.newContext()) {
+        try (BrowserContext context = browser.newContext()) {
             Page page = context.newPage();
             Response navigation = page.navigate(uri().toString());
             navigation.finished();
@@ -92,7 +91,16 @@ public abstract class AbstractComDirectScraper extends AbstractPaginatableScrape
                 acceptCookies(page);
 
                 LOG.debug("Reading from page #{} of Index [{}]", pageNumber, getName());
-                extractFromCurrentPage(page, stocks);
+                extractFromCurrentPage(page, stocks, stockDownloadOption);
+
+                if (stockDownloadOption.isLimitReached(stocks.size())) {
+                    LOG.debug(
+                            "Limit of [{}] stocks reached on page #{} of Index [{}].",
+                            stocks.size(),
+                            pageNumber,
+                            getName());
+                    break;
+                }
 
                 nextArrow = page.locator("div.pagination__button.pagination__button--right a").elementHandles().stream()
                         .filter(ElementHandle::isVisible)
@@ -102,7 +110,7 @@ public abstract class AbstractComDirectScraper extends AbstractPaginatableScrape
             } while (nextArrow != null && nextArrow.asElement().isEnabled());
         }
 
-        return List.copyOf(stocks);
+        return stockDownloadOption.limit(stocks);
     }
 
     private void acceptCookies(Page page) {
@@ -117,12 +125,16 @@ public abstract class AbstractComDirectScraper extends AbstractPaginatableScrape
         }
     }
 
-    private void extractFromCurrentPage(Page page, List<Stock> stocks) {
+    private void extractFromCurrentPage(Page page, List<Stock> stocks, StockDownloadOption stockDownloadOption) {
         ElementHandle mainTable = page.querySelector("table.table--comparison");
         DomHelper.tryScrollIntoView(mainTable);
         mainTable.querySelector("tbody").waitForElementState(ElementState.VISIBLE);
 
         for (ElementHandle tbodyTr : mainTable.querySelectorAll("tbody tr")) {
+            if (stockDownloadOption.isLimitReached(stocks.size())) {
+                return;
+            }
+
             ElementHandle stockNameCol = tbodyTr.querySelector("td[data-label=\"Name\"] a");
 
             if (stockNameCol == null) {
@@ -22,9 +22,9 @@ import com.microsoft.playwright.Frame;
 import com.microsoft.playwright.FrameLocator;
 import com.microsoft.playwright.Locator;
 import com.microsoft.playwright.Page;
-import com.microsoft.playwright.Playwright;
 import com.microsoft.playwright.PlaywrightException;
 import com.microsoft.playwright.Response;
+import de.bmarwell.aktienfinder.scraper.library.download.StockDownloadOption;
 import de.bmarwell.aktienfinder.scraper.library.download.StockIndexStockRetriever;
 import de.bmarwell.aktienfinder.scraper.library.scrape.DomHelper;
 import de.bmarwell.aktienfinder.scraper.value.Isin;
@@ -55,11 +55,10 @@ public abstract class AbstractWallstreetOnlineDeScraper extends AbstractPaginata
     }
 
     @Override
-    public List<Stock> getStocks(Playwright blocking) {
+    public List<Stock> getStocks(Browser browser, StockDownloadOption stockDownloadOption) {
         List<Stock> stocks = new ArrayList<>();
 
-        try (Browser browser = blocking.chromium().launch();
-                BrowserContext context = browser.newContext()) {
+        try (BrowserContext context = browser.newContext()) {
             Page page = context.newPage();
             Response navigation = page.navigate(uri().toString());
             navigation.finished();
@@ -83,7 +82,16 @@ public abstract class AbstractWallstreetOnlineDeScraper extends AbstractPaginata
                 acceptCookies(page);
 
                 LOG.debug("Reading from page #{} of Index [{}]", pageNumber, getName());
-                extractFromCurrentPage(page, stocks, context, pageNumber);
+                extractFromCurrentPage(page, stocks, context, pageNumber, stockDownloadOption);
+
+                if (stockDownloadOption.isLimitReached(stocks.size())) {
+                    LOG.debug(
+                            "Limit of [{}] stocks reached on page #{} of Index [{}].",
+                            stocks.size(),
+                            pageNumber,
+                            getName());
+                    break;
+                }
 
                 nextArrow = page.locator("div#highlowvalues a.next.page-link").elementHandles().stream()
                         .filter(ElementHandle::isVisible)
@@ -93,7 +101,7 @@ public abstract class AbstractWallstreetOnlineDeScraper extends AbstractPaginata
             } while (nextArrow != null && nextArrow.asElement().isEnabled());
         }
 
-        return List.copyOf(stocks);
+        return stockDownloadOption.limit(stocks);
     }
 
     private void acceptCookies(Page page) {
@@ -134,12 +142,22 @@ public abstract class AbstractWallstreetOnlineDeScraper extends AbstractPaginata
         cookiesAccepted = true;
     }
 
-    private void extractFromCurrentPage(Page page, List<Stock> stocks, BrowserContext context, int pageNumber) {
+    private void extractFromCurrentPage(
+            Page page,
+            List<Stock> stocks,
+            BrowserContext context,
+            int pageNumber,
+            StockDownloadOption stockDownloadOption) {
         Locator mainTableBody = page.locator("table#highlowvalues tbody");
         ElementHandle mainTableBodyHandle = mainTableBody.elementHandle();
         DomHelper.tryScrollIntoView(mainTableBodyHandle);
 
         for (ElementHandle tbodyTr : mainTableBodyHandle.querySelectorAll("tr")) {
+            // each stock needs its own page load, so stop early.
+            if (stockDownloadOption.isLimitReached(stocks.size())) {
+                return;
+            }
+
             List<ElementHandle> stockColumns = tbodyTr.querySelectorAll("td");
 
             // skip elements which are unknown
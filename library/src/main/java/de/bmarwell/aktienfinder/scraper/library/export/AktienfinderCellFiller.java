@@ -20,29 +20,35 @@ import de.bmarwell.aktienfinder.scraper.value.AktienfinderStock;
 import java.math.BigDecimal;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
-import java.util.function.BiFunction;
 import java.util.function.Function;
 import org.apache.poi.common.usermodel.HyperlinkType;
 import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.CellStyle;
-import org.apache.poi.ss.usermodel.FillPatternType;
 import org.apache.poi.ss.usermodel.Hyperlink;
 import org.apache.poi.ss.usermodel.IndexedColors;
-import org.apache.poi.ss.usermodel.Workbook;
 
+/**
+ * Defines how a single column is filled: which value to extract, how to write it into a cell and how to style it.
+ *
+ * <p>Value extractors and stylers do not touch the workbook, so they may be called in parallel. Only the cell
+ * consumer writes to the workbook and must be called from the thread owning it.</p>
+ *
+ * @param valueExtractor extracts the column value from a stock.
+ * @param cellConsumer writes the extracted value into a cell.
+ * @param styler describes the style of the cell, resolved by a {@link CellStyleCache} when writing.
+ */
 public record AktienfinderCellFiller(
         Function<AktienfinderStock, Object> valueExtractor,
         TriConsumer<Cell, AktienfinderStock, Object> cellConsumer,
-        BiFunction<AktienfinderStock, Workbook, CellStyle> styler) {
+        Function<AktienfinderStock, StyleDescriptor> styler) {
 
     public static AktienfinderCellFiller neutral(Function<AktienfinderStock, Object> valueExtractor) {
         return new AktienfinderCellFiller(
-                valueExtractor, text, (af, wb) -> new DefaultStyler().apply(valueExtractor, af, wb));
+                valueExtractor, text, af -> DefaultStyler.INSTANCE.apply(valueExtractor, af));
     }
 
     public static AktienfinderCellFiller withLink(Function<AktienfinderStock, Object> valueExtractor) {
         return new AktienfinderCellFiller(
-                valueExtractor, linker, (af, wb) -> new DefaultStyler().apply(valueExtractor, af, wb));
+                valueExtractor, linker, af -> DefaultStyler.INSTANCE.apply(valueExtractor, af));
     }
 
     public static AktienfinderCellFiller fromBewertung(Function<AktienfinderStock, Object> valueExtractor) {
@@ -74,39 +80,37 @@ public record AktienfinderCellFiller(
         cell.setHyperlink(link);
     });
 
-    static BiFunction<AktienfinderStock, Workbook, CellStyle> bewertungsStyler = (aktienfinderStock, workbook) -> {
-        CellStyle cellStyle = workbook.createCellStyle();
-        cellStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+    static Function<AktienfinderStock, StyleDescriptor> bewertungsStyler = aktienfinderStock -> {
         String bewertung = aktienfinderStock.stockFazit().bewertung();
 
-        switch (bewertung) {
-            case "stark unterbewertet" -> cellStyle.setFillForegroundColor(IndexedColors.LIGHT_GREEN.getIndex());
-            case "unterbewertet" -> cellStyle.setFillForegroundColor(IndexedColors.LIGHT_GREEN.getIndex());
-            case "leicht unterbewertet" -> cellStyle.setFillForegroundColor(IndexedColors.LIGHT_GREEN.getIndex());
-            case "fair bewertet" -> cellStyle.setFillForegroundColor(IndexedColors.LIGHT_GREEN.getIndex());
-            case "leicht überbewertet" -> cellStyle.setFillForegroundColor(IndexedColors.RED.getIndex());
-            case "überbewertet" -> cellStyle.setFillForegroundColor(IndexedColors.RED.getIndex());
-            case "stark überbewertet" -> cellStyle.setFillForegroundColor(IndexedColors.RED.getIndex());
-            default -> cellStyle.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
-        }
+        IndexedColors fillColor =
+                switch (bewertung) {
+                    case "stark unterbewertet" -> IndexedColors.LIGHT_GREEN;
+                    case "unterbewertet" -> IndexedColors.LIGHT_GREEN;
+                    case "leicht unterbewertet" -> IndexedColors.LIGHT_GREEN;
+                    case "fair bewertet" -> IndexedColors.LIGHT_GREEN;
+                    case "leicht überbewertet" -> IndexedColors.RED;
+                    case "überbewertet" -> IndexedColors.RED;
+                    case "stark überbewertet" -> IndexedColors.RED;
+                    default -> IndexedColors.GREY_25_PERCENT;
+                };
 
-        return cellStyle;
+        return StyleDescriptor.filled(fillColor);
     };
 
-    static BiFunction<AktienfinderStock, Workbook, CellStyle> summaryStyler = (aktienfinderStock, workbook) -> {
-        CellStyle cellStyle = workbook.createCellStyle();
-        cellStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+    static Function<AktienfinderStock, StyleDescriptor> summaryStyler = aktienfinderStock -> {
         String summary = aktienfinderStock.stockFazit().zusammenfassung();
 
-        switch (summary) {
-            case "negative" -> cellStyle.setFillForegroundColor(IndexedColors.DARK_RED.getIndex());
-            case "negative-light" -> cellStyle.setFillForegroundColor(IndexedColors.RED.getIndex());
-            case "neutral-light" -> cellStyle.setFillForegroundColor(IndexedColors.GREY_40_PERCENT.getIndex());
-            case "positive-light" -> cellStyle.setFillForegroundColor(IndexedColors.LIGHT_GREEN.getIndex());
-            case "positive" -> cellStyle.setFillForegroundColor(IndexedColors.GREEN.getIndex());
-            default -> cellStyle.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
-        }
+        IndexedColors fillColor =
+                switch (summary) {
+                    case "negative" -> IndexedColors.DARK_RED;
+                    case "negative-light" -> IndexedColors.RED;
+                    case "neutral-light" -> IndexedColors.GREY_40_PERCENT;
+                    case "positive-light" -> IndexedColors.LIGHT_GREEN;
+                    case "positive" -> IndexedColors.GREEN;
+                    default -> IndexedColors.GREY_25_PERCENT;
+                };
 
-        return cellStyle;
+        return StyleDescriptor.filled(fillColor);
     };
 }
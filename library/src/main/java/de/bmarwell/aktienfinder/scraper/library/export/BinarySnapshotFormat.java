@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.library.export;
+
+/**
+ * Layout of the binary snapshot format written by {@link BinarySnapshotWriter}.
+ *
+ * <p>All numbers are big-endian. The file consists of four sections:</p>
+ * <ol>
+ *     <li>Header ({@value #HEADER_SIZE} bytes): magic, version, row count, string count and the offsets of the
+ *     other sections.</li>
+ *     <li>Rows: one fixed-width row ({@value #ROW_SIZE} bytes) per stock. Strings are stored as ids into the
+ *     string table, {@value #NO_STRING} for an absent value. Absent numbers are stored as {@code NaN}.
+ *     The beta is stored as its decimal string in the string table, so its scale survives a round trip.</li>
+ *     <li>String table: the number of strings, {@code count + 1} offsets relative to the start of the string
+ *     data, followed by the UTF-8 encoded strings. Each distinct string is stored only once.</li>
+ *     <li>ISIN index: one entry per row, sorted by ISIN, consisting of the ISIN and the row number.</li>
+ * </ol>
+ */
+final class BinarySnapshotFormat {
+
+    /** {@code AFSN} in ASCII. */
+    static final int MAGIC = 0x4146534E;
+
+    /** Incremented on incompatible layout changes. Version 2 stores the beta as a string instead of a double. */
+    static final short VERSION = 2;
+
+    // header: magic, version, reserved, rowCount, stringCount, rowsOffset, stringTableOffset, isinIndexOffset
+    static final int HEADER_SIZE = 4 + 2 + 2 + 4 + 4 + 8 + 8 + 8;
+
+    static final int ISIN_LENGTH = 12;
+
+    // row layout, offsets relative to the row start.
+    static final int ROW_ISIN = 0;
+    static final int ROW_NAME = ROW_ISIN + ISIN_LENGTH;
+    static final int ROW_INDEX = ROW_NAME + 4;
+    static final int ROW_BILANZIERTER_GEWINN = ROW_INDEX + 4;
+    static final int ROW_BEREINIGTER_GEWINN = ROW_BILANZIERTER_GEWINN + 8;
+    static final int ROW_OPERATIVER_CASH_FLOW = ROW_BEREINIGTER_GEWINN + 8;
+    static final int ROW_DIVIDENDENERTRAGS_SCORE = ROW_OPERATIVER_CASH_FLOW + 8;
+    static final int ROW_DIVIDENDENWACHSTUMS_SCORE = ROW_DIVIDENDENERTRAGS_SCORE + 2;
+    static final int ROW_GEWINNWACHSTUMS_SCORE = ROW_DIVIDENDENWACHSTUMS_SCORE + 2;
+    static final int ROW_BEWERTUNG = ROW_GEWINNWACHSTUMS_SCORE + 2;
+    static final int ROW_ZUSAMMENFASSUNG = ROW_BEWERTUNG + 4;
+    static final int ROW_RISIKO = ROW_ZUSAMMENFASSUNG + 4;
+    static final int ROW_RISIKO_BESCHREIBUNG = ROW_RISIKO + 4;
+    static final int ROW_BETA = ROW_RISIKO_BESCHREIBUNG + 4;
+    static final int ROW_SIZE = ROW_BETA + 4;
+
+    static final int INDEX_ENTRY_SIZE = ISIN_LENGTH + 4;
+
+    static final int NO_STRING = -1;
+
+    private BinarySnapshotFormat() {
+        // constants
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.library.export;
+
+import static de.bmarwell.aktienfinder.scraper.library.export.BinarySnapshotFormat.HEADER_SIZE;
+import static de.bmarwell.aktienfinder.scraper.library.export.BinarySnapshotFormat.INDEX_ENTRY_SIZE;
+import static de.bmarwell.aktienfinder.scraper.library.export.BinarySnapshotFormat.ISIN_LENGTH;
+import static de.bmarwell.aktienfinder.scraper.library.export.BinarySnapshotFormat.NO_STRING;
+import static de.bmarwell.aktienfinder.scraper.library.export.BinarySnapshotFormat.ROW_SIZE;
+
+import de.bmarwell.aktienfinder.scraper.value.AktienfinderStock;
+import de.bmarwell.aktienfinder.scraper.value.Anlagestrategie;
+import de.bmarwell.aktienfinder.scraper.value.FinanzenNetRisiko;
+import de.bmarwell.aktienfinder.scraper.value.Isin;
+import de.bmarwell.aktienfinder.scraper.value.Stock;
+import de.bmarwell.aktienfinder.scraper.value.StockBewertung;
+import de.bmarwell.aktienfinder.scraper.value.StockFazit;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Reads a snapshot written by {@link BinarySnapshotWriter} by mapping the file into memory.
+ *
+ * <p>Opening a snapshot only validates the header. Rows are decoded on access, strings are decoded once and
+ * then cached. Lookups by ISIN use a binary search on the ISIN index.</p>
+ *
+ * <p>Instances may be read from several threads. The mapping stays valid until the reader is closed.</p>
+ */
+public final class BinarySnapshotReader implements AutoCloseable, Iterable<AktienfinderStock> {
+
+    private final FileChannel channel;
+
+    private final ByteBuffer buffer;
+
+    private final int rowCount;
+
+    private final int rowsOffset;
+
+    private final int stringOffsetsOffset;
+
+    private final int stringDataOffset;
+
+    private final int isinIndexOffset;
+
+    private final String[] strings;
+
+    private BinarySnapshotReader(FileChannel channel, MappedByteBuffer buffer) throws IOException {
+        this.channel = channel;
+        this.buffer = buffer;
+
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != BinarySnapshotFormat.MAGIC) {
+            throw new IOException("Not an aktienfinder snapshot.");
+        }
+
+        short version = buffer.getShort(4);
+        if (version != BinarySnapshotFormat.VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + ", expected "
+                    + BinarySnapshotFormat.VERSION + ".");
+        }
+
+        this.rowCount = buffer.getInt(8);
+        int stringCount = buffer.getInt(12);
+        this.rowsOffset = Math.toIntExact(buffer.getLong(16));
+        int stringTableOffset = Math.toIntExact(buffer.getLong(24));
+        this.isinIndexOffset = Math.toIntExact(buffer.getLong(32));
+
+        this.stringOffsetsOffset = stringTableOffset + 4;
+        this.stringDataOffset = this.stringOffsetsOffset + (stringCount + 1) * 4;
+        this.strings = new String[stringCount];
+    }
+
+    /**
+     * Maps the given snapshot file into memory.
+     *
+     * @param snapshotFile a file written by {@link BinarySnapshotWriter}.
+     * @return an open reader, which must be closed.
+     * @throws IOException if the file cannot be read or is not a supported snapshot.
+     */
+    public static BinarySnapshotReader open(Path snapshotFile) throws IOException {
+        FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ);
+
+        try {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0L, channel.size());
+
+            return new BinarySnapshotReader(channel, buffer);
+        } catch (IOException | RuntimeException ex) {
+            channel.close();
+            throw ex;
+        }
+    }
+
+    public int size() {
+        return this.rowCount;
+    }
+
+    public Isin isin(int row) {
+        byte[] isin = new byte[ISIN_LENGTH];
+        this.buffer.get(rowOffset(row) + BinarySnapshotFormat.ROW_ISIN, isin);
+
+        return Isin.fromString(new String(isin, StandardCharsets.US_ASCII));
+    }
+
+    public AktienfinderStock get(int row) {
+        int offset = rowOffset(row);
+
+        Stock stock = new Stock(
+                string(offset + BinarySnapshotFormat.ROW_NAME).orElse(""),
+                isin(row),
+                string(offset + BinarySnapshotFormat.ROW_INDEX));
+        StockBewertung stockBewertung = new StockBewertung(
+                this.buffer.getDouble(offset + BinarySnapshotFormat.ROW_BILANZIERTER_GEWINN),
+                this.buffer.getDouble(offset + BinarySnapshotFormat.ROW_BEREINIGTER_GEWINN),
+                this.buffer.getDouble(offset + BinarySnapshotFormat.ROW_OPERATIVER_CASH_FLOW));
+        Anlagestrategie anlagestrategie = new Anlagestrategie(
+                this.buffer.getShort(offset + BinarySnapshotFormat.ROW_DIVIDENDENERTRAGS_SCORE),
+                this.buffer.getShort(offset + BinarySnapshotFormat.ROW_DIVIDENDENWACHSTUMS_SCORE),
+                this.buffer.getShort(offset + BinarySnapshotFormat.ROW_GEWINNWACHSTUMS_SCORE));
+        StockFazit stockFazit = new StockFazit(
+                anlagestrategie,
+                string(offset + BinarySnapshotFormat.ROW_BEWERTUNG).orElse(""),
+                string(offset + BinarySnapshotFormat.ROW_ZUSAMMENFASSUNG).orElse(""));
+
+        FinanzenNetRisiko finanzenNetRisiko = new FinanzenNetRisiko(
+                string(offset + BinarySnapshotFormat.ROW_RISIKO),
+                string(offset + BinarySnapshotFormat.ROW_RISIKO_BESCHREIBUNG),
+                string(offset + BinarySnapshotFormat.ROW_BETA).map(BigDecimal::new));
+
+        return new AktienfinderStock(stock, stockBewertung, stockFazit, finanzenNetRisiko);
+    }
+
+    /**
+     * Finds the row of the given ISIN using the ISIN index.
+     *
+     * @param isin the ISIN to look up.
+     * @return the row number, or empty if the snapshot does not contain the ISIN.
+     */
+    public OptionalInt indexOf(Isin isin) {
+        byte[] wanted = isin.value().getBytes(StandardCharsets.US_ASCII);
+        int low = 0;
+        int high = this.rowCount - 1;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int entryOffset = this.isinIndexOffset + mid * INDEX_ENTRY_SIZE;
+            int comparison = compareIsin(entryOffset, wanted);
+
+            if (comparison < 0) {
+                low = mid + 1;
+            } else if (comparison > 0) {
+                high = mid - 1;
+            } else {
+                return OptionalInt.of(this.buffer.getInt(entryOffset + ISIN_LENGTH));
+            }
+        }
+
+        return OptionalInt.empty();
+    }
+
+    public Optional<AktienfinderStock> find(Isin isin) {
+        OptionalInt row = indexOf(isin);
+
+        return row.isPresent() ? Optional.of(get(row.getAsInt())) : Optional.empty();
+    }
+
+    public Stream<AktienfinderStock> stream() {
+        return IntStream.range(0, this.rowCount).mapToObj(this::get);
+    }
+
+    @Override
+    public Iterator<AktienfinderStock> iterator() {
+        return new Iterator<>() {
+            private int row = 0;
+
+            @Override
+            public boolean hasNext() {
+                return row < rowCount;
+            }
+
+            @Override
+            public AktienfinderStock next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                return get(row++);
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    private int rowOffset(int row) {
+        if (row < 0 || row >= this.rowCount) {
+            throw new IndexOutOfBoundsException("Row " + row + " not in [0, " + this.rowCount + ").");
+        }
+
+        return this.rowsOffset + row * ROW_SIZE;
+    }
+
+    private int compareIsin(int entryOffset, byte[] wanted) {
+        for (int i = 0; i < ISIN_LENGTH; i++) {
+            int comparison = Byte.compare(this.buffer.get(entryOffset + i), wanted[i]);
+
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+
+        return 0;
+    }
+
+    private Optional<String> string(int idOffset) {
+        int id = this.buffer.getInt(idOffset);
+
+        if (id == NO_STRING) {
+            return Optional.empty();
+        }
+
+        String string = this.strings[id];
+        if (string == null) {
+            int start = this.buffer.getInt(this.stringOffsetsOffset + id * 4);
+            int end = this.buffer.getInt(this.stringOffsetsOffset + (id + 1) * 4);
+            byte[] bytes = new byte[end - start];
+            this.buffer.get(this.stringDataOffset + start, bytes);
+            string = new String(bytes, StandardCharsets.UTF_8);
+            // benign race: concurrent readers decode the same value.
+            this.strings[id] = string;
+        }
+
+        return Optional.of(string);
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.library.export;
+
+import static de.bmarwell.aktienfinder.scraper.library.export.BinarySnapshotFormat.HEADER_SIZE;
+import static de.bmarwell.aktienfinder.scraper.library.export.BinarySnapshotFormat.INDEX_ENTRY_SIZE;
+import static de.bmarwell.aktienfinder.scraper.library.export.BinarySnapshotFormat.NO_STRING;
+import static de.bmarwell.aktienfinder.scraper.library.export.BinarySnapshotFormat.ROW_SIZE;
+
+import de.bmarwell.aktienfinder.scraper.value.AktienfinderStock;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes stocks in the compact binary snapshot format described in {@link BinarySnapshotFormat}.
+ *
+ * <p>Rows are streamed to the file. Only the distinct strings and the ISINs are kept in memory until the string
+ * table and the ISIN index are written at the end. Use {@link BinarySnapshotReader} to read the file.</p>
+ */
+public class BinarySnapshotWriter implements ExportService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BinarySnapshotWriter.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Override
+    public void export(Iterable<AktienfinderStock> ratings, Path outputFile) {
+        try (FileChannel channel = FileChannel.open(
+                outputFile,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            write(ratings, channel);
+        } catch (IOException ioException) {
+            LOG.error("Problem writing snapshot to [{}].", outputFile, ioException);
+        }
+    }
+
+    private static void write(Iterable<AktienfinderStock> ratings, FileChannel channel) throws IOException {
+        Map<String, Integer> stringIds = new HashMap<>();
+        List<byte[]> strings = new ArrayList<>();
+        List<IndexEntry> isinIndex = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        channel.position(HEADER_SIZE);
+        long rowsOffset = HEADER_SIZE;
+
+        for (AktienfinderStock afStock : ratings) {
+            ensureRemaining(buffer, channel, ROW_SIZE);
+            writeRow(buffer, afStock, stringIds, strings);
+            isinIndex.add(new IndexEntry(afStock.stock().isin().value(), isinIndex.size()));
+        }
+
+        flush(buffer, channel);
+        long stringTableOffset = channel.position();
+        writeStringTable(buffer, channel, strings);
+
+        long isinIndexOffset = channel.position();
+        isinIndex.sort(Comparator.comparing(IndexEntry::isin));
+        for (IndexEntry indexEntry : isinIndex) {
+            ensureRemaining(buffer, channel, INDEX_ENTRY_SIZE);
+            buffer.put(indexEntry.isin().getBytes(StandardCharsets.US_ASCII));
+            buffer.putInt(indexEntry.row());
+        }
+        flush(buffer, channel);
+
+        buffer.putInt(BinarySnapshotFormat.MAGIC);
+        buffer.putShort(BinarySnapshotFormat.VERSION);
+        buffer.putShort((short) 0);
+        buffer.putInt(isinIndex.size());
+        buffer.putInt(strings.size());
+        buffer.putLong(rowsOffset);
+        buffer.putLong(stringTableOffset);
+        buffer.putLong(isinIndexOffset);
+        buffer.flip();
+
+        // a positional write does not necessarily write the whole buffer either.
+        long position = 0L;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static void writeRow(
+            ByteBuffer buffer, AktienfinderStock afStock, Map<String, Integer> stringIds, List<byte[]> strings) {
+        var stock = afStock.stock();
+        var bewertung = afStock.stockBewertung();
+        var anlagestrategie = afStock.stockFazit().anlagestrategie();
+        var risiko = afStock.finanzenNetRisiko();
+
+        buffer.put(stock.isin().value().getBytes(StandardCharsets.US_ASCII));
+        buffer.putInt(stringId(stock.name(), stringIds, strings));
+        buffer.putInt(stringId(stock.index().orElse(null), stringIds, strings));
+        buffer.putDouble(bewertung.blianzierterGewinn());
+        buffer.putDouble(bewertung.bereinigterGewinn());
+        buffer.putDouble(bewertung.operativerCashFlow());
+        buffer.putShort(anlagestrategie.dividendenertragsScore());
+        buffer.putShort(anlagestrategie.dividendenwachstumsScore());
+        buffer.putShort(anlagestrategie.gewinnwachstumsScore());
+        buffer.putInt(stringId(afStock.stockFazit().bewertung(), stringIds, strings));
+        buffer.putInt(stringId(afStock.stockFazit().zusammenfassung(), stringIds, strings));
+        buffer.putInt(stringId(risiko.risiko().orElse(null), stringIds, strings));
+        buffer.putInt(stringId(risiko.risikoBeschreibung().orElse(null), stringIds, strings));
+        buffer.putInt(stringId(risiko.beta().map(BigDecimal::toString).orElse(null), stringIds, strings));
+    }
+
+    private static int stringId(String value, Map<String, Integer> stringIds, List<byte[]> strings) {
+        if (value == null) {
+            return NO_STRING;
+        }
+
+        return stringIds.computeIfAbsent(value, newValue -> {
+            strings.add(newValue.getBytes(StandardCharsets.UTF_8));
+            return strings.size() - 1;
+        });
+    }
+
+    private static void writeStringTable(ByteBuffer buffer, FileChannel channel, List<byte[]> strings)
+            throws IOException {
+        ensureRemaining(buffer, channel, 4);
+        buffer.putInt(strings.size());
+
+        int offset = 0;
+        for (byte[] string : strings) {
+            ensureRemaining(buffer, channel, 4);
+            buffer.putInt(offset);
+            offset += string.length;
+        }
+        ensureRemaining(buffer, channel, 4);
+        buffer.putInt(offset);
+
+        for (byte[] string : strings) {
+            if (string.length > buffer.capacity()) {
+                flush(buffer, channel);
+                writeFully(ByteBuffer.wrap(string), channel);
+                continue;
+            }
+
+            ensureRemaining(buffer, channel, string.length);
+            buffer.put(string);
+        }
+
+        flush(buffer, channel);
+    }
+
+    private static void ensureRemaining(ByteBuffer buffer, FileChannel channel, int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush(buffer, channel);
+        }
+    }
+
+    private static void flush(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        writeFully(buffer, channel);
+        buffer.clear();
+    }
+
+    private static void writeFully(ByteBuffer buffer, FileChannel channel) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private record IndexEntry(String isin, int row) {}
+}
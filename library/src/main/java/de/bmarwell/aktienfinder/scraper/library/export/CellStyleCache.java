@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.library.export;
+
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.DataFormat;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.Workbook;
+
+/**
+ * Creates each distinct cell style only once per workbook.
+ *
+ * <p>Excel limits the number of cell styles per workbook (64000), and every style is written to the styles
+ * table. Creating a style per cell therefore bloats the file and fails on large exports.</p>
+ *
+ * <p>Not thread-safe, like the {@link Workbook} itself.</p>
+ */
+public class CellStyleCache {
+
+    private final Workbook workbook;
+
+    private final DataFormat dataFormat;
+
+    private final Map<StyleDescriptor, CellStyle> styles = new HashMap<>();
+
+    public CellStyleCache(Workbook workbook) {
+        this.workbook = workbook;
+        this.dataFormat = workbook.createDataFormat();
+    }
+
+    /**
+     * Returns the shared style for the given descriptor, creating it on first use.
+     *
+     * @param styleDescriptor the style to look up.
+     * @return a style which must not be modified, as it is shared by all cells with the same descriptor.
+     */
+    public CellStyle get(StyleDescriptor styleDescriptor) {
+        return this.styles.computeIfAbsent(styleDescriptor, this::createStyle);
+    }
+
+    public int size() {
+        return this.styles.size();
+    }
+
+    private CellStyle createStyle(StyleDescriptor styleDescriptor) {
+        CellStyle cellStyle = this.workbook.createCellStyle();
+
+        styleDescriptor.fillColor().ifPresent(fillColor -> {
+            cellStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+            cellStyle.setFillForegroundColor(fillColor.getIndex());
+        });
+        styleDescriptor.dataFormat().ifPresent(format -> cellStyle.setDataFormat(this.dataFormat.getFormat(format)));
+        cellStyle.setAlignment(styleDescriptor.alignment());
+
+        return cellStyle;
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.library.export;
+
+import java.math.BigDecimal;
+import org.apache.poi.ss.usermodel.Sheet;
+
+/**
+ * Estimates column widths from the longest value written to each column.
+ *
+ * <p>This replaces {@link Sheet#autoSizeColumn(int, boolean)}, which needs all rows in memory and measures
+ * each cell using AWT font metrics. The estimate assumes roughly one character width per character,
+ * which is good enough for the default font.</p>
+ */
+final class ColumnWidthEstimator {
+
+    /** Excel's maximum column width, in 1/256th of a character. */
+    private static final int MAX_WIDTH = 255 * 256;
+
+    /** Extra characters for padding and the auto filter drop-down button. */
+    private static final int PADDING_CHARS = 3;
+
+    private final int[] maxChars;
+
+    ColumnWidthEstimator(int columns) {
+        this.maxChars = new int[columns];
+    }
+
+    void track(int col, Object value) {
+        if (value == null || col >= this.maxChars.length) {
+            return;
+        }
+
+        int length =
+                switch (value) {
+                    case BigDecimal bd -> bd.toBigInteger().toString().length() + 3;
+                    case Double d -> String.valueOf(d.longValue()).length() + 3;
+                    case Float f -> String.valueOf(f.longValue()).length() + 3;
+                    default -> value.toString().length();
+                };
+
+        this.maxChars[col] = Math.max(this.maxChars[col], length);
+    }
+
+    void applyTo(Sheet sheet) {
+        for (int col = 0; col < this.maxChars.length; col++) {
+            sheet.setColumnWidth(col, Math.min((this.maxChars[col] + PADDING_CHARS) * 256, MAX_WIDTH));
+        }
+    }
+}
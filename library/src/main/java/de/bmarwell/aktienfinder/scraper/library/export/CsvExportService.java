@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.library.export;
+
+import de.bmarwell.aktienfinder.scraper.value.AktienfinderStock;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes stocks as comma separated values (RFC 4180), one stock per line.
+ *
+ * <p>Rows are written straight to a buffered writer, so memory usage does not depend on the number of stocks.</p>
+ */
+public class CsvExportService implements ExportService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CsvExportService.class);
+
+    private static final char SEPARATOR = ',';
+
+    private static final String LINE_SEPARATOR = "\r\n";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Override
+    public void export(Iterable<AktienfinderStock> ratings, Path outputFile) {
+        try (Writer writer = new BufferedWriter(
+                new OutputStreamWriter(
+                        Files.newOutputStream(
+                                outputFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING),
+                        StandardCharsets.UTF_8),
+                BUFFER_SIZE)) {
+            writeRow(writer, ExportColumns.HEADERS);
+
+            for (AktienfinderStock afStock : ratings) {
+                writeStockRow(writer, afStock);
+            }
+        } catch (IOException ioException) {
+            LOG.error("Problem writing csv to [{}].", outputFile, ioException);
+        }
+    }
+
+    private static void writeStockRow(Writer writer, AktienfinderStock afStock) throws IOException {
+        for (int col = 0; col < ExportColumns.CELL_FILLERS.size(); col++) {
+            if (col > 0) {
+                writer.write(SEPARATOR);
+            }
+
+            try {
+                writeField(writer, ExportColumns.textValue(afStock, col));
+            } catch (RuntimeException rtEx) {
+                LOG.error("Problem writing column idx [{}] for share [{}].", col, afStock.stock());
+            }
+        }
+
+        writer.write(LINE_SEPARATOR);
+    }
+
+    static void writeRow(Writer writer, Iterable<String> values) throws IOException {
+        boolean first = true;
+
+        for (String value : values) {
+            if (!first) {
+                writer.write(SEPARATOR);
+            }
+
+            writeField(writer, value);
+            first = false;
+        }
+
+        writer.write(LINE_SEPARATOR);
+    }
+
+    static void writeField(Writer writer, String value) throws IOException {
+        boolean needsQuotes = false;
+
+        for (int i = 0; i < value.length() && !needsQuotes; i++) {
+            char c = value.charAt(i);
+            needsQuotes = c == SEPARATOR || c == '"' || c == '\n' || c == '\r';
+        }
+
+        if (!needsQuotes) {
+            writer.write(value);
+            return;
+        }
+
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
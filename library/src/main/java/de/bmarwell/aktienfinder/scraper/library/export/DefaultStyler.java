@@ -18,26 +18,19 @@ package de.bmarwell.aktienfinder.scraper.library.export;
 import de.bmarwell.aktienfinder.scraper.value.AktienfinderStock;
 import java.math.BigDecimal;
 import java.util.function.Function;
-import org.apache.poi.ss.usermodel.CellStyle;
-import org.apache.poi.ss.usermodel.Workbook;
 
 public class DefaultStyler {
 
-    public CellStyle apply(Function<AktienfinderStock, Object> valueExtractor, AktienfinderStock af, Workbook wb) {
+    static final DefaultStyler INSTANCE = new DefaultStyler();
+
+    public StyleDescriptor apply(Function<AktienfinderStock, Object> valueExtractor, AktienfinderStock af) {
         Object value = valueExtractor.apply(af);
 
         return switch (value) {
-            case BigDecimal bd -> roundToTwoDigits(wb);
-            case Double d -> roundToTwoDigits(wb);
-            case Float f -> roundToTwoDigits(wb);
-            default -> wb.createCellStyle();
+            case BigDecimal bd -> StyleDescriptor.TWO_DIGITS;
+            case Double d -> StyleDescriptor.TWO_DIGITS;
+            case Float f -> StyleDescriptor.TWO_DIGITS;
+            default -> StyleDescriptor.DEFAULT;
         };
     }
-
-    private CellStyle roundToTwoDigits(Workbook workbook) {
-        CellStyle style = workbook.createCellStyle();
-        style.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("0.00"));
-
-        return style;
-    }
 }
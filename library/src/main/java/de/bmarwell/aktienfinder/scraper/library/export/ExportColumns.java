@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.library.export;
+
+import de.bmarwell.aktienfinder.scraper.value.AktienfinderStock;
+import de.bmarwell.aktienfinder.scraper.value.Anlagestrategie;
+import de.bmarwell.aktienfinder.scraper.value.FinanzenNetRisiko;
+import de.bmarwell.aktienfinder.scraper.value.Isin;
+import de.bmarwell.aktienfinder.scraper.value.Stock;
+import de.bmarwell.aktienfinder.scraper.value.StockBewertung;
+import de.bmarwell.aktienfinder.scraper.value.StockFazit;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The columns written by all {@link ExportService} implementations, in order.
+ */
+final class ExportColumns {
+
+    static final List<String> HEADERS = List.of(
+            "ISIN",
+            "Name",
+            "Index",
+            "Bilanzierter Gewinn",
+            "Bereinigter Gewinn",
+            "Operativer Cash Flow",
+            "Dividendenertragsscore",
+            "Dividendenwachstumsscore",
+            "Gewinnwachstumsscore",
+            "Bewertung",
+            "Zusammenfassung",
+            "Risiko",
+            "Risikobegründung",
+            "Beta");
+
+    static final List<AktienfinderCellFiller> CELL_FILLERS = List.of(
+            // basis
+            AktienfinderCellFiller.withLink((as) -> as.stock().isin().value()),
+            AktienfinderCellFiller.withLink((as) -> as.stock().name()),
+            AktienfinderCellFiller.neutral((as) -> as.stock().index().orElse("")),
+            // basisdaten
+            AktienfinderCellFiller.neutral((as) -> as.stockBewertung().blianzierterGewinn()),
+            AktienfinderCellFiller.neutral((as) -> as.stockBewertung().bereinigterGewinn()),
+            AktienfinderCellFiller.neutral((as) -> as.stockBewertung().operativerCashFlow()),
+            // scores
+            AktienfinderCellFiller.neutral(
+                    (as) -> as.stockFazit().anlagestrategie().dividendenertragsScore()),
+            AktienfinderCellFiller.neutral(
+                    (as) -> as.stockFazit().anlagestrategie().dividendenwachstumsScore()),
+            AktienfinderCellFiller.neutral(
+                    (as) -> as.stockFazit().anlagestrategie().gewinnwachstumsScore()),
+            // fazit
+            AktienfinderCellFiller.fromBewertung((as) -> as.stockFazit().bewertung()),
+            AktienfinderCellFiller.fromZusammenfassung((as) -> as.stockFazit().zusammenfassung()),
+            // risiko
+            AktienfinderCellFiller.neutral(
+                    (as) -> as.finanzenNetRisiko().risiko().orElse("")),
+            AktienfinderCellFiller.neutral(
+                    (as) -> as.finanzenNetRisiko().risikoBeschreibung().orElse("")),
+            AktienfinderCellFiller.neutral((as) ->
+                    as.finanzenNetRisiko().beta().map(BigDecimal::toPlainString).orElse("")));
+
+    /** The first column containing scraped data, i.e. after ISIN, name and index. */
+    static final int FIRST_RATING_COLUMN = 3;
+
+    private ExportColumns() {
+        // constants
+    }
+
+    /**
+     * Creates a stock from the text values of all columns, as written by {@link #textValue(AktienfinderStock, int)}.
+     * This is the inverse of the export and used to read previous exports back in.
+     *
+     * @param values the text values, one per column in the order of {@link #HEADERS}.
+     * @return the stock.
+     * @throws IllegalArgumentException if the number of values does not match or the ISIN is invalid.
+     */
+    static AktienfinderStock fromTextValues(List<String> values) {
+        if (values.size() != HEADERS.size()) {
+            throw new IllegalArgumentException(
+                    "Expected " + HEADERS.size() + " columns, but got " + values.size() + ": " + values);
+        }
+
+        Stock stock = new Stock(values.get(1), Isin.fromString(values.get(0).strip()), optional(values.get(2)));
+        StockBewertung stockBewertung = new StockBewertung(
+                parseDouble(values.get(3)), parseDouble(values.get(4)), parseDouble(values.get(5)));
+        Anlagestrategie anlagestrategie = new Anlagestrategie(
+                parseShort(values.get(6)), parseShort(values.get(7)), parseShort(values.get(8)));
+        StockFazit stockFazit = new StockFazit(anlagestrategie, values.get(9), values.get(10));
+        FinanzenNetRisiko finanzenNetRisiko = new FinanzenNetRisiko(
+                optional(values.get(11)), optional(values.get(12)), optional(values.get(13)).map(BigDecimal::new));
+
+        return new AktienfinderStock(stock, stockBewertung, stockFazit, finanzenNetRisiko);
+    }
+
+    private static Optional<String> optional(String value) {
+        return value == null || value.isBlank() ? Optional.empty() : Optional.of(value);
+    }
+
+    private static double parseDouble(String value) {
+        return value == null || value.isBlank() ? Double.NaN : Double.parseDouble(value.strip());
+    }
+
+    private static short parseShort(String value) {
+        return value == null || value.isBlank() ? 0 : new BigDecimal(value.strip()).shortValue();
+    }
+
+    /**
+     * Extracts the value of the given column as plain text, for text based formats.
+     *
+     * @param afStock the stock to read from.
+     * @param col the column index.
+     * @return the value as text; numbers without exponent; empty for missing or non-finite values.
+     */
+    static String textValue(AktienfinderStock afStock, int col) {
+        Object value = CELL_FILLERS.get(col).valueExtractor().apply(afStock);
+
+        return switch (value) {
+            case null -> "";
+            case String s -> s;
+            case BigDecimal bd -> bd.toPlainString();
+            case Double d when d.isNaN() || d.isInfinite() -> "";
+            case Double d -> BigDecimal.valueOf(d).toPlainString();
+            case Float f when f.isNaN() || f.isInfinite() -> "";
+            case Float f -> new BigDecimal(f.toString()).toPlainString();
+            default -> value.toString();
+        };
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.library.export;
+
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The supported output formats.
+ */
+public enum ExportFormat {
+    XLSX(".xlsx", MsExcelExportService::new),
+    CSV(".csv", CsvExportService::new),
+    NDJSON(".ndjson", NdjsonExportService::new),
+    /** Compact binary snapshot, see {@link BinarySnapshotReader}. */
+    BINARY(".afs", BinarySnapshotWriter::new);
+
+    private static final Logger LOG = LoggerFactory.getLogger(ExportFormat.class);
+
+    private final String extension;
+
+    private final Supplier<ExportService> exportServiceFactory;
+
+    ExportFormat(String extension, Supplier<ExportService> exportServiceFactory) {
+        this.extension = extension;
+        this.exportServiceFactory = exportServiceFactory;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public ExportService createExportService() {
+        return exportServiceFactory.get();
+    }
+
+    /**
+     * Creates the export service, optionally with one sheet per index plus a summary sheet.
+     *
+     * @param sheetPerIndex whether to split the output by index. Only supported by {@link #XLSX}, the other formats
+     *     log a warning and write all stocks as usual.
+     * @return a new export service.
+     */
+    public ExportService createExportService(boolean sheetPerIndex) {
+        if (!sheetPerIndex) {
+            return createExportService();
+        }
+
+        if (this != XLSX) {
+            LOG.warn("[{}] does not support one sheet per index, writing all stocks as usual.", this);
+            return createExportService();
+        }
+
+        return new MsExcelExportService(MsExcelExportService.DEFAULT_ROW_ACCESS_WINDOW_SIZE, true);
+    }
+
+    /**
+     * Guesses the format from the extension of the output file.
+     *
+     * @param outputFile the output file.
+     * @return the format matching the file extension, or empty if the extension is unknown.
+     */
+    public static Optional<ExportFormat> fromFileName(Path outputFile) {
+        String fileName = outputFile.getFileName().toString().toLowerCase(Locale.ROOT);
+
+        if (fileName.endsWith(".jsonl")) {
+            return Optional.of(NDJSON);
+        }
+
+        for (ExportFormat exportFormat : values()) {
+            if (fileName.endsWith(exportFormat.extension)) {
+                return Optional.of(exportFormat);
+            }
+        }
+
+        return Optional.empty();
+    }
+}
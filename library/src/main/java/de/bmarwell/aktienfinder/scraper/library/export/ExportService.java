@@ -0,0 +1,33 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.library.export;
+
+import de.bmarwell.aktienfinder.scraper.value.AktienfinderStock;
+import java.nio.file.Path;
+
+/**
+ * Writes scraped stocks to a file. All implementations write the same columns, see {@link ExportColumns}.
+ */
+public interface ExportService {
+
+    /**
+     * Writes all given stocks to the output file, replacing it if it exists.
+     *
+     * @param ratings the stocks to write. Iterated exactly once, so it may be backed by a lazy source.
+     * @param outputFile the file to write.
+     */
+    void export(Iterable<AktienfinderStock> ratings, Path outputFile);
+}
@@ -16,22 +16,28 @@
 package de.bmarwell.aktienfinder.scraper.library.export;
 
 import de.bmarwell.aktienfinder.scraper.value.AktienfinderStock;
+import de.bmarwell.aktienfinder.scraper.value.Anlagestrategie;
 import java.io.IOException;
-import java.math.BigDecimal;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.ToIntFunction;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
-import org.apache.poi.ss.usermodel.FillPatternType;
-import org.apache.poi.ss.usermodel.HorizontalAlignment;
-import org.apache.poi.ss.usermodel.IndexedColors;
 import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.util.CellRangeAddress;
-import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.apache.poi.ss.util.WorkbookUtil;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -40,163 +46,236 @@ import org.slf4j.LoggerFactory;
  * Excel file (.xlsx format) using Apache POI library. This service organizes data into
  * specified headers and header groups, and writes the data into corresponding cells.
  *
- * <p>This class maintains predefined headers and their respective groupings, each containing a
- * size and a name. It leverages {@code AktienfinderCellFiller} for dynamic cell content population
- * and styling.</p>
+ * <p>The columns are defined in {@code ExportColumns}. It leverages {@code AktienfinderCellFiller}
+ * for dynamic cell content population and styling.</p>
  *
- * <p>The primary method {@code export} accepts a list of {@code AktienfinderStock} objects and a
+ * <p>The primary method {@code export} accepts {@code AktienfinderStock} objects and a
  * {@code Path} for the output Excel file. It writes the data into the Excel sheet, including
- * styled headers and auto-sized columns.</p>
+ * styled headers and sized columns.</p>
  *
- * <p>Note: Make sure to handle {@code IOException} appropriately when calling the {@code export} method.</p>
+ * <p>Rows are written using a {@link SXSSFWorkbook}: only the last {@code rowAccessWindowSize} rows are kept
+ * in memory, older rows are flushed to a compressed temporary file. Column widths are estimated from the
+ * longest value per column, because {@link Sheet#autoSizeColumn(int, boolean)} cannot see flushed rows.</p>
  *
- * <p>Methods summary:
- * <ul>
- *   <li>{@code export}: Exports provided stock data to an Excel file.
- *   <li>{@code writeStockRow}: Writes a row of stock data into the Excel sheet.
- *   <li>{@code writeRowCell}: Writes an individual cell within the stock row.
- *   <li>{@code createHeaderStyle}: Creates and returns a cell style for headers.
- * </ul>
- * </p>
+ * <p>Values and styles of each row are prepared in parallel (see {@code PreparedRow}), in batches of
+ * {@value #BATCH_SIZE} stocks. Only the POI writes happen sequentially.</p>
+ *
+ * <p>If {@code sheetPerIndex} is set, the stocks are split into one sheet per index plus a summary sheet.
+ * A stock which is a member of several indices appears on each of their sheets. As the stocks must be grouped
+ * first, this mode keeps all prepared rows in memory.</p>
+ *
+ * <p>Cell styles are shared by all cells with the same look via a {@link CellStyleCache}.</p>
  */
-public class MsExcelExportService {
+public class MsExcelExportService implements ExportService {
 
     private static final Logger LOG = LoggerFactory.getLogger(MsExcelExportService.class);
 
-    private static final List<String> HEADERS = List.of(
-            "ISIN",
-            "Name",
+    /** Number of rows kept in memory before they are flushed to a temporary file. */
+    public static final int DEFAULT_ROW_ACCESS_WINDOW_SIZE = 100;
+
+    /** Number of stocks prepared in parallel before they are written. */
+    static final int BATCH_SIZE = 1_000;
+
+    static final String SINGLE_SHEET_NAME = "Aktienfinder";
+
+    static final String SUMMARY_SHEET_NAME = "Übersicht";
+
+    static final String NO_INDEX_SHEET_NAME = "Ohne Index";
+
+    private static final List<String> SUMMARY_HEADERS = List.of(
             "Index",
-            "Bilanzierter Gewinn",
-            "Bereinigter Gewinn",
-            "Operativer Cash Flow",
-            "Dividendenertragsscore",
-            "Dividendenwachstumsscore",
-            "Gewinnwachstumsscore",
-            "Bewertung",
-            "Zusammenfassung",
-            "Risiko",
-            "Risikobegründung",
-            "Beta");
-
-    private static final List<HeaderGroup> HEADER_GROUPS = List.of(
-            new HeaderGroup(3, "Basis"),
-            new HeaderGroup(3, "Basisdaten"),
-            new HeaderGroup(3, "Scores"),
-            new HeaderGroup(2, "Fazit"),
-            new HeaderGroup(3, "Finanzen.net Risiko"));
-
-    private static final List<AktienfinderCellFiller> CELL_FILLERS = List.of(
-            // basis
-            AktienfinderCellFiller.withLink(((as) -> as.stock().isin())),
-            AktienfinderCellFiller.withLink((as) -> as.stock().name()),
-            AktienfinderCellFiller.neutral((as) -> as.stock().index().orElse("")),
-            // basisdaten
-            AktienfinderCellFiller.neutral((as) -> as.stockBewertung().blianzierterGewinn()),
-            AktienfinderCellFiller.neutral((as) -> as.stockBewertung().bereinigterGewinn()),
-            AktienfinderCellFiller.neutral((as) -> as.stockBewertung().operativerCashFlow()),
-            // scores
-            AktienfinderCellFiller.neutral(
-                    (as) -> as.stockFazit().anlagestrategie().dividendenertragsScore()),
-            AktienfinderCellFiller.neutral(
-                    (as) -> as.stockFazit().anlagestrategie().dividendenwachstumsScore()),
-            AktienfinderCellFiller.neutral(
-                    (as) -> as.stockFazit().anlagestrategie().gewinnwachstumsScore()),
-            // fazit
-            AktienfinderCellFiller.fromBewertung((as) -> as.stockFazit().bewertung()),
-            AktienfinderCellFiller.fromZusammenfassung((as) -> as.stockFazit().zusammenfassung()),
-            // risiko
-            AktienfinderCellFiller.neutral(
-                    (as) -> as.finanzenNetRisiko().risiko().orElse("")),
-            AktienfinderCellFiller.neutral(
-                    (as) -> as.finanzenNetRisiko().risikoBeschreibung().orElse("")),
-            AktienfinderCellFiller.neutral((as) ->
-                    as.finanzenNetRisiko().beta().map(BigDecimal::toPlainString).orElse("")));
-
-    record HeaderGroup(int size, String name) {}
-
-    public void export(List<AktienfinderStock> ratings, Path outputFile) {
-        try (Workbook workbook = new XSSFWorkbook();
+            "Aktien",
+            "Unterbewertet",
+            "Fair bewertet",
+            "Überbewertet",
+            "Ø Dividendenertragsscore",
+            "Ø Dividendenwachstumsscore",
+            "Ø Gewinnwachstumsscore");
+
+    private static final List<ToIntFunction<Anlagestrategie>> SUMMARY_SCORES = List.of(
+            Anlagestrategie::dividendenertragsScore,
+            Anlagestrategie::dividendenwachstumsScore,
+            Anlagestrategie::gewinnwachstumsScore);
+
+    private final int rowAccessWindowSize;
+
+    private final boolean sheetPerIndex;
+
+    public MsExcelExportService() {
+        this(DEFAULT_ROW_ACCESS_WINDOW_SIZE);
+    }
+
+    /**
+     * Creates an export service which streams rows to disk.
+     *
+     * @param rowAccessWindowSize number of rows kept in memory. Use {@code -1} to keep all rows in memory.
+     */
+    public MsExcelExportService(int rowAccessWindowSize) {
+        this(rowAccessWindowSize, false);
+    }
+
+    /**
+     * Creates an export service which streams rows to disk.
+     *
+     * @param rowAccessWindowSize number of rows kept in memory. Use {@code -1} to keep all rows in memory.
+     * @param sheetPerIndex whether to write one sheet per index plus a summary sheet instead of a single sheet.
+     */
+    public MsExcelExportService(int rowAccessWindowSize, boolean sheetPerIndex) {
+        this.rowAccessWindowSize = rowAccessWindowSize;
+        this.sheetPerIndex = sheetPerIndex;
+    }
+
+    @Override
+    public void export(Iterable<AktienfinderStock> ratings, Path outputFile) {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(this.rowAccessWindowSize);
+        workbook.setCompressTempFiles(true);
+
+        try (workbook;
                 var os = Files.newOutputStream(
                         outputFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
-            CellStyle headerStyle = createHeaderStyle(workbook);
-
-            Sheet sheet = workbook.createSheet("Aktienfinder");
+            CellStyleCache styles = new CellStyleCache(workbook);
 
-            sheet.setColumnWidth(0, 4000);
-            sheet.setColumnWidth(1, 6000);
+            int rows = this.sheetPerIndex
+                    ? writeSheetPerIndex(workbook, styles, ratings)
+                    : writeSingleSheet(workbook, styles, ratings);
 
-            Row headerGroupRow = sheet.createRow(0);
+            LOG.debug("Created [{}] cell styles for [{}] rows.", styles.size(), rows);
 
-            int idx = 0;
-            for (HeaderGroup headerGroup : HEADER_GROUPS) {
-                Cell firstCellOfGroup = headerGroupRow.createCell(idx);
-                firstCellOfGroup.setCellValue(headerGroup.name());
-                firstCellOfGroup.setCellStyle(headerStyle);
+            workbook.write(os);
+        } catch (IOException ioException) {
+            LOG.error("Problem writing book to [{}].", outputFile, ioException);
+        } finally {
+            workbook.dispose();
+        }
+    }
 
-                CellRangeAddress headerGroupRegion = new CellRangeAddress(0, 0, idx, idx + headerGroup.size() - 1);
-                sheet.addMergedRegion(headerGroupRegion);
+    private static int writeSingleSheet(
+            SXSSFWorkbook workbook, CellStyleCache styles, Iterable<AktienfinderStock> ratings) {
+        StockSheetWriter sheetWriter = new StockSheetWriter(workbook.createSheet(SINGLE_SHEET_NAME), styles);
+        List<AktienfinderStock> batch = new ArrayList<>(BATCH_SIZE);
 
-                firstCellOfGroup.setCellStyle(headerStyle);
+        for (AktienfinderStock afStock : ratings) {
+            batch.add(afStock);
 
-                idx += headerGroup.size();
+            if (batch.size() == BATCH_SIZE) {
+                sheetWriter.writeRows(PreparedRow.prepareAll(batch));
+                batch.clear();
             }
+        }
 
-            Row headerRow = sheet.createRow(1);
+        sheetWriter.writeRows(PreparedRow.prepareAll(batch));
 
-            for (int col = 0; col < HEADERS.size(); col++) {
-                Cell headerCell = headerRow.createCell(col);
-                headerCell.setCellValue(HEADERS.get(col));
-                headerCell.setCellStyle(headerStyle);
-            }
+        return sheetWriter.finish();
+    }
 
-            for (AktienfinderStock afStock : ratings) {
-                Row stockRow = sheet.createRow(sheet.getLastRowNum() + 1);
+    private static int writeSheetPerIndex(
+            SXSSFWorkbook workbook, CellStyleCache styles, Iterable<AktienfinderStock> ratings) {
+        List<AktienfinderStock> stocks = new ArrayList<>();
+        ratings.forEach(stocks::add);
 
-                writeStockRow(afStock, stockRow);
+        Map<String, List<PreparedRow>> rowsByIndex = new TreeMap<>();
+        for (PreparedRow preparedRow : PreparedRow.prepareAll(stocks)) {
+            for (String indexName : indexNames(preparedRow.stock())) {
+                rowsByIndex.computeIfAbsent(indexName, key -> new ArrayList<>()).add(preparedRow);
             }
+        }
 
-            sheet.setAutoFilter(new CellRangeAddress(1, 1, 0, HEADERS.size()));
+        writeSummarySheet(workbook.createSheet(SUMMARY_SHEET_NAME), styles, rowsByIndex);
 
-            for (int col = 0; col < HEADERS.size(); col++) {
-                sheet.autoSizeColumn(col, true);
-            }
+        Set<String> sheetNames = new HashSet<>();
+        sheetNames.add(SUMMARY_SHEET_NAME.toLowerCase(Locale.ROOT));
 
-            workbook.write(os);
-        } catch (IOException ioException) {
-            LOG.error("Problem writing book to [{}].", outputFile, ioException);
+        for (Map.Entry<String, List<PreparedRow>> indexRows : rowsByIndex.entrySet()) {
+            Sheet sheet = workbook.createSheet(uniqueSheetName(indexRows.getKey(), sheetNames));
+            StockSheetWriter sheetWriter = new StockSheetWriter(sheet, styles);
+            sheetWriter.writeRows(indexRows.getValue());
+            sheetWriter.finish();
         }
+
+        return stocks.size();
     }
 
-    private static void writeStockRow(AktienfinderStock afStock, Row stockRow) {
+    private static void writeSummarySheet(
+            Sheet sheet, CellStyleCache styles, Map<String, List<PreparedRow>> rowsByIndex) {
+        CellStyle headerStyle = styles.get(StyleDescriptor.HEADER);
+        CellStyle twoDigits = styles.get(StyleDescriptor.TWO_DIGITS);
+        ColumnWidthEstimator columnWidths = new ColumnWidthEstimator(SUMMARY_HEADERS.size());
 
-        for (int col = 0; col < CELL_FILLERS.size(); col++) {
-            try {
-                writeRowCell(afStock, stockRow, col);
-            } catch (RuntimeException rtEx) {
-                LOG.error("Problem writing cell idx [{}] for share [{}].", col, afStock.stock());
+        Row headerRow = sheet.createRow(0);
+        for (int col = 0; col < SUMMARY_HEADERS.size(); col++) {
+            Cell headerCell = headerRow.createCell(col);
+            headerCell.setCellValue(SUMMARY_HEADERS.get(col));
+            headerCell.setCellStyle(headerStyle);
+            columnWidths.track(col, SUMMARY_HEADERS.get(col));
+        }
+
+        int rowNum = 0;
+        for (Map.Entry<String, List<PreparedRow>> indexRows : rowsByIndex.entrySet()) {
+            List<AktienfinderStock> stocks =
+                    indexRows.getValue().stream().map(PreparedRow::stock).toList();
+            Row row = sheet.createRow(++rowNum);
+
+            row.createCell(0).setCellValue(indexRows.getKey());
+            columnWidths.track(0, indexRows.getKey());
+            row.createCell(1).setCellValue(stocks.size());
+            row.createCell(2).setCellValue(countBewertung(stocks, "unterbewertet"));
+            row.createCell(3).setCellValue(countBewertung(stocks, "fair bewertet"));
+            row.createCell(4).setCellValue(countBewertung(stocks, "überbewertet"));
+
+            for (int score = 0; score < SUMMARY_SCORES.size(); score++) {
+                ToIntFunction<Anlagestrategie> scoreExtractor = SUMMARY_SCORES.get(score);
+                // unrated stocks have a score of -1.
+                OptionalDouble average = stocks.stream()
+                        .mapToInt(stock -> scoreExtractor.applyAsInt(stock.stockFazit().anlagestrategie()))
+                        .filter(stockScore -> stockScore >= 0)
+                        .average();
+
+                Cell averageCell = row.createCell(5 + score);
+                if (average.isPresent()) {
+                    averageCell.setCellValue(average.getAsDouble());
+                }
+                averageCell.setCellStyle(twoDigits);
             }
         }
+
+        sheet.setAutoFilter(new CellRangeAddress(0, 0, 0, SUMMARY_HEADERS.size() - 1));
+        columnWidths.applyTo(sheet);
+    }
+
+    private static long countBewertung(List<AktienfinderStock> stocks, String bewertung) {
+        return stocks.stream()
+                .map(stock -> stock.stockFazit().bewertung())
+                .filter(stockBewertung -> stockBewertung != null && stockBewertung.endsWith(bewertung))
+                .count();
     }
 
-    private static void writeRowCell(AktienfinderStock afStock, Row stockRow, int col) {
-        Cell cellByIndex = stockRow.createCell(col);
-        AktienfinderCellFiller aktienfinderCellFiller = CELL_FILLERS.get(col);
-        var value = aktienfinderCellFiller.valueExtractor().apply(afStock);
-        aktienfinderCellFiller.cellConsumer().accept(cellByIndex, afStock, value);
+    /**
+     * Splits the index field of a stock, which contains all index names joined by {@code ", "} for stocks
+     * which are a member of several indices.
+     */
+    private static List<String> indexNames(AktienfinderStock afStock) {
+        List<String> indexNames = afStock.stock().index().stream()
+                .flatMap(index -> Arrays.stream(index.split(",")))
+                .map(String::strip)
+                .filter(indexName -> !indexName.isEmpty())
+                .distinct()
+                .toList();
 
-        CellStyle style = aktienfinderCellFiller
-                .styler()
-                .apply(afStock, stockRow.getSheet().getWorkbook());
-        cellByIndex.setCellStyle(style);
+        return indexNames.isEmpty() ? List.of(NO_INDEX_SHEET_NAME) : indexNames;
     }
 
-    private CellStyle createHeaderStyle(Workbook workbook) {
-        CellStyle cellStyle = workbook.createCellStyle();
-        cellStyle.setFillPattern(FillPatternType.SOLID_FOREGROUND);
-        cellStyle.setFillForegroundColor(IndexedColors.GREY_25_PERCENT.getIndex());
-        cellStyle.setAlignment(HorizontalAlignment.CENTER);
+    private static String uniqueSheetName(String indexName, Set<String> sheetNames) {
+        String safeName = WorkbookUtil.createSafeSheetName(indexName);
+        String sheetName = safeName;
+        int suffix = 1;
+
+        // sheet names are compared case-insensitively by Excel.
+        while (!sheetNames.add(sheetName.toLowerCase(Locale.ROOT))) {
+            suffix++;
+            String suffixText = " (" + suffix + ")";
+            sheetName = safeName.substring(0, Math.min(safeName.length(), 31 - suffixText.length())) + suffixText;
+        }
 
-        return cellStyle;
+        return sheetName;
     }
 }
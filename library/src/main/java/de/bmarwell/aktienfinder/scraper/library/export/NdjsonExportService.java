@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.library.export;
+
+import de.bmarwell.aktienfinder.scraper.value.AktienfinderStock;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes stocks as newline-delimited JSON, one object per stock and line.
+ *
+ * <p>Keys are the column headers. Numeric columns are written as JSON numbers, everything else as strings.
+ * Objects are written by hand instead of using a {@code JsonGenerator}, because a generator only supports a
+ * single top-level value.</p>
+ */
+public class NdjsonExportService implements ExportService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NdjsonExportService.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    static final String SCRAPED_AT = "scrapedAt";
+
+    private static final String SCRAPED_AT_KEY = quote(SCRAPED_AT) + ':';
+
+    /** Headers already quoted and escaped, followed by a colon. */
+    private static final List<String> KEYS = ExportColumns.HEADERS.stream()
+            .map(header -> quote(header) + ':')
+            .toList();
+
+    @Override
+    public void export(Iterable<AktienfinderStock> ratings, Path outputFile) {
+        try (Writer writer = new BufferedWriter(
+                new OutputStreamWriter(
+                        Files.newOutputStream(
+                                outputFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING),
+                        StandardCharsets.UTF_8),
+                BUFFER_SIZE)) {
+            for (AktienfinderStock afStock : ratings) {
+                writeStockLine(writer, afStock, null);
+            }
+        } catch (IOException ioException) {
+            LOG.error("Problem writing ndjson to [{}].", outputFile, ioException);
+        }
+    }
+
+    /**
+     * Writes one stock as a line of JSON.
+     *
+     * @param scrapedAt if not {@code null}, written as additional first member {@code scrapedAt}.
+     */
+    static void writeStockLine(Writer writer, AktienfinderStock afStock, Instant scrapedAt) throws IOException {
+        writer.write('{');
+
+        if (scrapedAt != null) {
+            writer.write(SCRAPED_AT_KEY);
+            writer.write(quote(scrapedAt.toString()));
+            writer.write(',');
+        }
+
+        for (int col = 0; col < ExportColumns.CELL_FILLERS.size(); col++) {
+            if (col > 0) {
+                writer.write(',');
+            }
+
+            writer.write(KEYS.get(col));
+
+            try {
+                writeValue(writer, ExportColumns.CELL_FILLERS.get(col).valueExtractor().apply(afStock));
+            } catch (RuntimeException rtEx) {
+                LOG.error("Problem writing column idx [{}] for share [{}].", col, afStock.stock());
+                writer.write("null");
+            }
+        }
+
+        writer.write("}\n");
+    }
+
+    private static void writeValue(Writer writer, Object value) throws IOException {
+        switch (value) {
+            case null -> writer.write("null");
+            case Double d when d.isNaN() || d.isInfinite() -> writer.write("null");
+            case Float f when f.isNaN() || f.isInfinite() -> writer.write("null");
+            case Number number -> writer.write(numberText(number));
+            case Boolean b -> writer.write(b.toString());
+            default -> writer.write(quote(value.toString()));
+        }
+    }
+
+    private static String numberText(Number number) {
+        return switch (number) {
+            case BigDecimal bd -> bd.toPlainString();
+            case Double d -> BigDecimal.valueOf(d).toPlainString();
+            default -> number.toString();
+        };
+    }
+
+    static String quote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2);
+        quoted.append('"');
+
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            switch (c) {
+                case '"' -> quoted.append("\\\"");
+                case '\\' -> quoted.append("\\\\");
+                case '\n' -> quoted.append("\\n");
+                case '\r' -> quoted.append("\\r");
+                case '\t' -> quoted.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+                }
+            }
+        }
+
+        return quoted.append('"').toString();
+    }
+}
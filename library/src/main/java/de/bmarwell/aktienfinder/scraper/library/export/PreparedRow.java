@@ -0,0 +1,67 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.library.export;
+
+import de.bmarwell.aktienfinder.scraper.value.AktienfinderStock;
+import java.util.Arrays;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The extracted values and style descriptors of one stock row, computed without touching the workbook.
+ *
+ * <p>Preparing rows is the expensive part of an export and can run in parallel; writing the prepared rows into
+ * the workbook must happen on a single thread.</p>
+ *
+ * @param stock the stock this row was prepared from.
+ * @param values the value per column, {@code null} if extraction failed.
+ * @param styles the style per column.
+ */
+record PreparedRow(AktienfinderStock stock, Object[] values, StyleDescriptor[] styles) {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PreparedRow.class);
+
+    static PreparedRow prepare(AktienfinderStock afStock) {
+        int columns = ExportColumns.CELL_FILLERS.size();
+        Object[] values = new Object[columns];
+        StyleDescriptor[] styles = new StyleDescriptor[columns];
+        Arrays.fill(styles, StyleDescriptor.DEFAULT);
+
+        for (int col = 0; col < columns; col++) {
+            AktienfinderCellFiller aktienfinderCellFiller = ExportColumns.CELL_FILLERS.get(col);
+
+            try {
+                values[col] = aktienfinderCellFiller.valueExtractor().apply(afStock);
+                styles[col] = aktienfinderCellFiller.styler().apply(afStock);
+            } catch (RuntimeException rtEx) {
+                LOG.error("Problem preparing cell idx [{}] for share [{}].", col, afStock.stock());
+            }
+        }
+
+        return new PreparedRow(afStock, values, styles);
+    }
+
+    /**
+     * Prepares all given stocks in parallel.
+     *
+     * @param stocks the stocks to prepare.
+     * @return the prepared rows, in the same order as the stocks.
+     */
+    static List<PreparedRow> prepareAll(List<AktienfinderStock> stocks) {
+        return stocks.parallelStream().map(PreparedRow::prepare).toList();
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.library.export;
+
+import de.bmarwell.aktienfinder.scraper.value.AktienfinderStock;
+import de.bmarwell.aktienfinder.scraper.value.Isin;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compares two result sets by ISIN and returns only the stocks whose ratings changed.
+ *
+ * <p>The previous result set is put into a hash map keyed by ISIN, the current result set is then streamed
+ * against it. This runs in linear time, tens of thousands of stocks take milliseconds.</p>
+ *
+ * <p>All scraped columns are compared by their exported text value (see {@code ExportColumns}), so results
+ * read back from any export format compare equal to freshly scraped ones. Name and index are not compared.</p>
+ */
+public final class ResultDiff {
+
+    private ResultDiff() {
+        // utility
+    }
+
+    /**
+     * Computes the changes from the previous to the current result set.
+     *
+     * @param previous the previous results, e.g. read by {@link ResultSetReader}.
+     * @param current the current results.
+     * @return changed and added stocks in the order of {@code current}, followed by removed stocks.
+     */
+    public static List<StockChange> diff(Collection<AktienfinderStock> previous, Iterable<AktienfinderStock> current) {
+        Map<Isin, AktienfinderStock> previousByIsin = LinkedHashMap.newLinkedHashMap(previous.size());
+        for (AktienfinderStock afStock : previous) {
+            previousByIsin.put(afStock.stock().isin(), afStock);
+        }
+
+        List<StockChange> changes = new ArrayList<>();
+        Set<Isin> seen = HashSet.newHashSet(previous.size());
+
+        for (AktienfinderStock currentStock : current) {
+            Isin isin = currentStock.stock().isin();
+            if (!seen.add(isin)) {
+                // duplicate in the current results, already compared.
+                continue;
+            }
+
+            AktienfinderStock previousStock = previousByIsin.remove(isin);
+
+            if (previousStock == null) {
+                changes.add(new StockChange(
+                        isin, currentStock.stock().name(), StockChange.ChangeType.ADDED, List.of()));
+                continue;
+            }
+
+            List<StockChange.FieldChange> fieldChanges = compare(previousStock, currentStock);
+            if (!fieldChanges.isEmpty()) {
+                changes.add(new StockChange(
+                        isin, currentStock.stock().name(), StockChange.ChangeType.CHANGED, fieldChanges));
+            }
+        }
+
+        for (AktienfinderStock removed : previousByIsin.values()) {
+            changes.add(new StockChange(
+                    removed.stock().isin(), removed.stock().name(), StockChange.ChangeType.REMOVED, List.of()));
+        }
+
+        return changes;
+    }
+
+    private static List<StockChange.FieldChange> compare(AktienfinderStock previous, AktienfinderStock current) {
+        List<StockChange.FieldChange> fieldChanges = new ArrayList<>();
+
+        for (int col = ExportColumns.FIRST_RATING_COLUMN; col < ExportColumns.HEADERS.size(); col++) {
+            String oldValue = ExportColumns.textValue(previous, col);
+            String newValue = ExportColumns.textValue(current, col);
+
+            if (!oldValue.equals(newValue)) {
+                fieldChanges.add(new StockChange.FieldChange(ExportColumns.HEADERS.get(col), oldValue, newValue));
+            }
+        }
+
+        return fieldChanges;
+    }
+}
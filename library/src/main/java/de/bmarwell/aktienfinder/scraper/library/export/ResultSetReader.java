@@ -0,0 +1,237 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.library.export;
+
+import de.bmarwell.aktienfinder.scraper.value.AktienfinderStock;
+import de.bmarwell.aktienfinder.scraper.value.Isin;
+import jakarta.json.Json;
+import jakarta.json.JsonNumber;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+import jakarta.json.JsonString;
+import jakarta.json.JsonValue;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+
+/**
+ * Reads results written by any {@link ExportService} back in, e.g. to compare them with a new scrape.
+ */
+public final class ResultSetReader {
+
+    private ResultSetReader() {
+        // utility
+    }
+
+    /**
+     * Reads all stocks from a previous export. The format is derived from the file extension.
+     *
+     * @param resultFile a file written by one of the {@link ExportFormat}s.
+     * @return the stocks in file order. For workbooks with one sheet per index, each stock is returned once.
+     * @throws IOException if the file cannot be read or its format is unknown.
+     */
+    public static List<AktienfinderStock> read(Path resultFile) throws IOException {
+        List<AktienfinderStock> stocks = new ArrayList<>();
+        forEach(resultFile, stocks::add);
+
+        return List.copyOf(stocks);
+    }
+
+    /**
+     * Passes the stocks of a previous export to the consumer one by one, without collecting them first.
+     * Binary, NDJSON and CSV files are read incrementally; workbooks have to be loaded completely.
+     *
+     * @param resultFile a file written by one of the {@link ExportFormat}s.
+     * @param stockConsumer receives the stocks in file order. For workbooks with one sheet per index, each stock
+     *                      is passed once.
+     * @throws IOException if the file cannot be read or its format is unknown.
+     */
+    public static void forEach(Path resultFile, Consumer<AktienfinderStock> stockConsumer) throws IOException {
+        ExportFormat exportFormat = ExportFormat.fromFileName(resultFile)
+                .orElseThrow(() -> new IOException("Unknown result file format: " + resultFile));
+
+        switch (exportFormat) {
+            case BINARY -> readBinary(resultFile, stockConsumer);
+            case NDJSON -> readNdjson(resultFile, stockConsumer);
+            case CSV -> readCsv(resultFile, stockConsumer);
+            case XLSX -> readWorkbook(resultFile, stockConsumer);
+        }
+    }
+
+    private static void readBinary(Path resultFile, Consumer<AktienfinderStock> stockConsumer) throws IOException {
+        try (BinarySnapshotReader snapshotReader = BinarySnapshotReader.open(resultFile)) {
+            snapshotReader.stream().forEach(stockConsumer);
+        }
+    }
+
+    private static void readNdjson(Path resultFile, Consumer<AktienfinderStock> stockConsumer) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(resultFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                try (JsonReader jsonReader = Json.createReader(new StringReader(line))) {
+                    stockConsumer.accept(fromJson(jsonReader.readObject()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Converts a line written by the {@link NdjsonExportService}. Additional members are ignored.
+     */
+    static AktienfinderStock fromJson(JsonObject stockObject) {
+        List<String> values = ExportColumns.HEADERS.stream()
+                .map(header -> jsonText(stockObject.get(header)))
+                .toList();
+
+        return ExportColumns.fromTextValues(values);
+    }
+
+    private static String jsonText(JsonValue jsonValue) {
+        return switch (jsonValue) {
+            case null -> "";
+            case JsonString jsonString -> jsonString.getString();
+            case JsonNumber jsonNumber -> jsonNumber.bigDecimalValue().toPlainString();
+            default -> JsonValue.NULL.equals(jsonValue) ? "" : jsonValue.toString();
+        };
+    }
+
+    private static void readCsv(Path resultFile, Consumer<AktienfinderStock> stockConsumer) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(resultFile, StandardCharsets.UTF_8)) {
+            // skip the header row
+            readCsvRecord(reader);
+
+            List<String> fields;
+            while ((fields = readCsvRecord(reader)) != null) {
+                if (fields.size() == 1 && fields.getFirst().isEmpty()) {
+                    continue;
+                }
+
+                stockConsumer.accept(ExportColumns.fromTextValues(fields));
+            }
+        }
+    }
+
+    /**
+     * Reads one RFC 4180 record, which may span several lines if a quoted field contains line breaks.
+     *
+     * @return the fields of the record, or {@code null} at the end of the input.
+     */
+    private static List<String> readCsvRecord(Reader reader) throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int c = reader.read();
+
+        if (c == -1) {
+            return null;
+        }
+
+        while (c != -1) {
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        reader.reset();
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+
+            c = reader.read();
+        }
+
+        fields.add(field.toString());
+
+        return fields;
+    }
+
+    private static void readWorkbook(Path resultFile, Consumer<AktienfinderStock> stockConsumer) throws IOException {
+        Set<Isin> seenIsins = new HashSet<>();
+
+        try (InputStream inputStream = Files.newInputStream(resultFile);
+                Workbook workbook = new XSSFWorkbook(inputStream)) {
+            for (Sheet sheet : workbook) {
+                if (MsExcelExportService.SUMMARY_SHEET_NAME.equals(sheet.getSheetName())) {
+                    continue;
+                }
+
+                for (Row row : sheet) {
+                    // header group and header rows
+                    if (row.getRowNum() < 2) {
+                        continue;
+                    }
+
+                    List<String> values = new ArrayList<>(ExportColumns.HEADERS.size());
+                    for (int col = 0; col < ExportColumns.HEADERS.size(); col++) {
+                        values.add(cellText(row.getCell(col)));
+                    }
+
+                    AktienfinderStock afStock = ExportColumns.fromTextValues(values);
+                    if (seenIsins.add(afStock.stock().isin())) {
+                        stockConsumer.accept(afStock);
+                    }
+                }
+            }
+        }
+    }
+
+    private static String cellText(Cell cell) {
+        if (cell == null) {
+            return "";
+        }
+
+        return switch (cell.getCellType()) {
+            case STRING -> cell.getStringCellValue();
+            case NUMERIC -> BigDecimal.valueOf(cell.getNumericCellValue()).toPlainString();
+            case BOOLEAN -> String.valueOf(cell.getBooleanCellValue());
+            default -> "";
+        };
+    }
+}
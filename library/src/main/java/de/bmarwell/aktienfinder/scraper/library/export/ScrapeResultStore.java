@@ -0,0 +1,243 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.library.export;
+
+import de.bmarwell.aktienfinder.scraper.value.AktienfinderStock;
+import de.bmarwell.aktienfinder.scraper.value.Isin;
+import jakarta.json.Json;
+import jakarta.json.JsonException;
+import jakarta.json.JsonObject;
+import jakarta.json.JsonReader;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A local store of the latest scrape result per ISIN, so reruns can skip stocks scraped recently.
+ *
+ * <p>The store is a single NDJSON file in the format of the {@link NdjsonExportService}, with an additional
+ * {@code scrapedAt} member per line. New results are appended and flushed immediately, so the results of an
+ * interrupted run are kept. When the store is closed and most lines were superseded by newer results for the same
+ * ISIN, the file is rewritten with only the latest line per ISIN. An incomplete last line left by a crash is
+ * removed on {@link #open(Path)}.</p>
+ *
+ * <p>The file is read completely on {@link #open(Path)}; one entry per stock is kept in memory.</p>
+ */
+public class ScrapeResultStore implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ScrapeResultStore.class);
+
+    private final Path storeFile;
+
+    private final Map<Isin, StoredResult> results;
+
+    private final Writer appender;
+
+    private int lines;
+
+    private record StoredResult(AktienfinderStock afStock, Instant scrapedAt) {}
+
+    private ScrapeResultStore(Path storeFile, Map<Isin, StoredResult> results, int lines) throws IOException {
+        this.storeFile = storeFile;
+        this.results = results;
+        this.lines = lines;
+        this.appender = new BufferedWriter(new OutputStreamWriter(
+                Files.newOutputStream(storeFile, StandardOpenOption.CREATE, StandardOpenOption.APPEND),
+                StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Opens the store, creating the file and its parent directories if they do not exist yet.
+     *
+     * @param storeFile the NDJSON file of the store.
+     * @return the opened store.
+     * @throws IOException if the file cannot be read or opened for appending.
+     */
+    public static ScrapeResultStore open(Path storeFile) throws IOException {
+        Map<Isin, StoredResult> results = new HashMap<>();
+        int lines = 0;
+
+        if (storeFile.toAbsolutePath().getParent() != null) {
+            Files.createDirectories(storeFile.toAbsolutePath().getParent());
+        }
+
+        if (Files.exists(storeFile)) {
+            truncateIncompleteLine(storeFile);
+
+            try (BufferedReader reader = Files.newBufferedReader(storeFile, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+
+                    lines++;
+                    readLine(line).ifPresent(stored -> results.merge(
+                            stored.afStock().stock().isin(),
+                            stored,
+                            (older, newer) -> newer.scrapedAt().isAfter(older.scrapedAt()) ? newer : older));
+                }
+            }
+        }
+
+        LOG.info("Result store [{}] contains [{}] stocks.", storeFile, results.size());
+
+        return new ScrapeResultStore(storeFile, results, lines);
+    }
+
+    /**
+     * Removes a last line without line break, as left by a crash while appending. Otherwise the next result would
+     * be appended to it, and both would be lost.
+     */
+    private static void truncateIncompleteLine(Path storeFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(storeFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(8192);
+            long end = channel.size();
+            long position = end;
+
+            while (position > 0) {
+                int chunk = (int) Math.min(buffer.capacity(), position);
+                position -= chunk;
+                buffer.clear().limit(chunk);
+
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, position + buffer.position()) < 0) {
+                        throw new EOFException("Result store " + storeFile + " was shortened while reading");
+                    }
+                }
+
+                for (int index = chunk - 1; index >= 0; index--) {
+                    if (buffer.get(index) == '\n') {
+                        truncate(channel, storeFile, position + index + 1, end);
+                        return;
+                    }
+                }
+            }
+
+            truncate(channel, storeFile, 0L, end);
+        }
+    }
+
+    private static void truncate(FileChannel channel, Path storeFile, long size, long end) throws IOException {
+        if (size == end) {
+            return;
+        }
+
+        LOG.warn("Removing [{}] bytes of an incomplete last line from result store [{}].", end - size, storeFile);
+        channel.truncate(size);
+    }
+
+    private static Optional<StoredResult> readLine(String line) {
+        try (JsonReader jsonReader = Json.createReader(new StringReader(line))) {
+            JsonObject stockObject = jsonReader.readObject();
+            Instant scrapedAt = Instant.parse(stockObject.getString(NdjsonExportService.SCRAPED_AT, ""));
+
+            return Optional.of(new StoredResult(ResultSetReader.fromJson(stockObject), scrapedAt));
+        } catch (JsonException | DateTimeParseException | IllegalArgumentException invalid) {
+            // e.g. a line truncated by a crash while appending.
+            LOG.warn("Skipping invalid line in result store: [{}].", line, invalid);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Returns the stored result if it was scraped recently enough.
+     *
+     * @param isin the ISIN of the stock.
+     * @param maxAge the maximum age of the result.
+     * @param now the current time.
+     * @return the stored result, or empty if there is none or it is older than {@code maxAge}.
+     */
+    public synchronized Optional<AktienfinderStock> getFresh(Isin isin, Duration maxAge, Instant now) {
+        StoredResult stored = this.results.get(isin);
+
+        if (stored == null || stored.scrapedAt().plus(maxAge).isBefore(now)) {
+            return Optional.empty();
+        }
+
+        return Optional.of(stored.afStock());
+    }
+
+    /**
+     * Stores a new result and appends it to the file immediately.
+     *
+     * @param afStock the scraped stock.
+     * @param scrapedAt when it was scraped.
+     */
+    public synchronized void put(AktienfinderStock afStock, Instant scrapedAt) {
+        this.results.put(afStock.stock().isin(), new StoredResult(afStock, scrapedAt));
+
+        try {
+            NdjsonExportService.writeStockLine(this.appender, afStock, scrapedAt);
+            this.appender.flush();
+            this.lines++;
+        } catch (IOException ioException) {
+            LOG.error("Unable to append [{}] to result store [{}].", afStock.stock(), this.storeFile, ioException);
+        }
+    }
+
+    public synchronized int size() {
+        return this.results.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        this.appender.close();
+
+        // rewrite only if at least half of the lines are outdated.
+        if (this.lines > 2 * this.results.size()) {
+            compact();
+        }
+    }
+
+    private void compact() throws IOException {
+        Path tempFile = Files.createTempFile(
+                this.storeFile.toAbsolutePath().getParent(), this.storeFile.getFileName().toString(), ".tmp");
+
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                Files.newOutputStream(tempFile, StandardOpenOption.TRUNCATE_EXISTING), StandardCharsets.UTF_8))) {
+            for (StoredResult stored : this.results.values()) {
+                NdjsonExportService.writeStockLine(writer, stored.afStock(), stored.scrapedAt());
+            }
+        }
+
+        Files.move(tempFile, this.storeFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        LOG.info(
+                "Compacted result store [{}] from [{}] to [{}] lines.",
+                this.storeFile,
+                this.lines,
+                this.results.size());
+    }
+}
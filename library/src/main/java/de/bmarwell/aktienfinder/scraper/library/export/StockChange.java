@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.library.export;
+
+import de.bmarwell.aktienfinder.scraper.value.Isin;
+import java.util.List;
+
+/**
+ * A stock which differs between two result sets.
+ *
+ * @param isin the ISIN of the stock.
+ * @param name the current name of the stock, or the previous name if it was removed.
+ * @param changeType whether the stock was added, removed or changed.
+ * @param fieldChanges the changed columns; empty for added and removed stocks.
+ */
+public record StockChange(Isin isin, String name, ChangeType changeType, List<FieldChange> fieldChanges) {
+
+    public StockChange {
+        fieldChanges = List.copyOf(fieldChanges);
+    }
+
+    public enum ChangeType {
+        ADDED,
+        REMOVED,
+        CHANGED
+    }
+
+    /**
+     * A single changed column.
+     *
+     * @param field the column header, see {@link ExportColumns#HEADERS}.
+     * @param oldValue the previous value as text.
+     * @param newValue the current value as text.
+     */
+    public record FieldChange(String field, String oldValue, String newValue) {}
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.library.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes the result of a {@link ResultDiff} as CSV, NDJSON or XLSX, depending on the file extension.
+ *
+ * <p>CSV and XLSX use a long format with one line per changed column. Added and removed stocks get a single
+ * line without a column. NDJSON writes one object per stock, with all changed columns in a nested object.</p>
+ */
+public class StockChangeExportService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StockChangeExportService.class);
+
+    private static final List<String> HEADERS = List.of("ISIN", "Name", "Änderung", "Spalte", "Alt", "Neu");
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public void export(List<StockChange> changes, Path outputFile) {
+        ExportFormat exportFormat = ExportFormat.fromFileName(outputFile).orElse(ExportFormat.CSV);
+
+        try {
+            switch (exportFormat) {
+                case NDJSON -> writeNdjson(changes, outputFile);
+                case XLSX -> writeWorkbook(changes, outputFile);
+                default -> writeCsv(changes, outputFile);
+            }
+        } catch (IOException ioException) {
+            LOG.error("Problem writing changes to [{}].", outputFile, ioException);
+        }
+    }
+
+    private static void writeCsv(List<StockChange> changes, Path outputFile) throws IOException {
+        try (Writer writer = newWriter(outputFile)) {
+            CsvExportService.writeRow(writer, HEADERS);
+
+            for (StockChange change : changes) {
+                for (List<String> line : lines(change)) {
+                    CsvExportService.writeRow(writer, line);
+                }
+            }
+        }
+    }
+
+    private static void writeNdjson(List<StockChange> changes, Path outputFile) throws IOException {
+        try (Writer writer = newWriter(outputFile)) {
+            for (StockChange change : changes) {
+                writer.write("{\"isin\":");
+                writer.write(NdjsonExportService.quote(change.isin().value()));
+                writer.write(",\"name\":");
+                writer.write(NdjsonExportService.quote(change.name()));
+                writer.write(",\"change\":");
+                writer.write(NdjsonExportService.quote(change.changeType().name()));
+                writer.write(",\"fields\":{");
+
+                boolean first = true;
+                for (StockChange.FieldChange fieldChange : change.fieldChanges()) {
+                    if (!first) {
+                        writer.write(',');
+                    }
+
+                    writer.write(NdjsonExportService.quote(fieldChange.field()));
+                    writer.write(":{\"old\":");
+                    writer.write(NdjsonExportService.quote(fieldChange.oldValue()));
+                    writer.write(",\"new\":");
+                    writer.write(NdjsonExportService.quote(fieldChange.newValue()));
+                    writer.write('}');
+                    first = false;
+                }
+
+                writer.write("}}\n");
+            }
+        }
+    }
+
+    private static void writeWorkbook(List<StockChange> changes, Path outputFile) throws IOException {
+        SXSSFWorkbook workbook = new SXSSFWorkbook(MsExcelExportService.DEFAULT_ROW_ACCESS_WINDOW_SIZE);
+        workbook.setCompressTempFiles(true);
+
+        try (workbook;
+                OutputStream os = Files.newOutputStream(
+                        outputFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            CellStyleCache styles = new CellStyleCache(workbook);
+            CellStyle headerStyle = styles.get(StyleDescriptor.HEADER);
+            ColumnWidthEstimator columnWidths = new ColumnWidthEstimator(HEADERS.size());
+            Sheet sheet = workbook.createSheet("Änderungen");
+
+            Row headerRow = sheet.createRow(0);
+            for (int col = 0; col < HEADERS.size(); col++) {
+                Cell headerCell = headerRow.createCell(col);
+                headerCell.setCellValue(HEADERS.get(col));
+                headerCell.setCellStyle(headerStyle);
+                columnWidths.track(col, HEADERS.get(col));
+            }
+
+            int rowNum = 0;
+            for (StockChange change : changes) {
+                for (List<String> line : lines(change)) {
+                    Row row = sheet.createRow(++rowNum);
+
+                    for (int col = 0; col < line.size(); col++) {
+                        row.createCell(col).setCellValue(line.get(col));
+                        columnWidths.track(col, line.get(col));
+                    }
+                }
+            }
+
+            sheet.setAutoFilter(new CellRangeAddress(0, 0, 0, HEADERS.size() - 1));
+            columnWidths.applyTo(sheet);
+
+            workbook.write(os);
+        } finally {
+            workbook.dispose();
+        }
+    }
+
+    private static List<List<String>> lines(StockChange change) {
+        String isin = change.isin().value();
+        String changeType = change.changeType().name();
+
+        if (change.fieldChanges().isEmpty()) {
+            return List.of(List.of(isin, change.name(), changeType, "", "", ""));
+        }
+
+        return change.fieldChanges().stream()
+                .map(fieldChange -> List.of(
+                        isin,
+                        change.name(),
+                        changeType,
+                        fieldChange.field(),
+                        fieldChange.oldValue(),
+                        fieldChange.newValue()))
+                .toList();
+    }
+
+    private static Writer newWriter(Path outputFile) throws IOException {
+        return new BufferedWriter(
+                new OutputStreamWriter(
+                        Files.newOutputStream(
+                                outputFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING),
+                        StandardCharsets.UTF_8),
+                BUFFER_SIZE);
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.library.export;
+
+import java.util.List;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.util.CellRangeAddress;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes the header and stock rows of a single sheet. Not thread-safe; all rows of a workbook must be written
+ * from the same thread.
+ */
+final class StockSheetWriter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StockSheetWriter.class);
+
+    private static final List<HeaderGroup> HEADER_GROUPS = List.of(
+            new HeaderGroup(3, "Basis"),
+            new HeaderGroup(3, "Basisdaten"),
+            new HeaderGroup(3, "Scores"),
+            new HeaderGroup(2, "Fazit"),
+            new HeaderGroup(3, "Finanzen.net Risiko"));
+
+    record HeaderGroup(int size, String name) {}
+
+    private final Sheet sheet;
+
+    private final CellStyleCache styles;
+
+    private final ColumnWidthEstimator columnWidths = new ColumnWidthEstimator(ExportColumns.HEADERS.size());
+
+    private int rowNum = 1;
+
+    StockSheetWriter(Sheet sheet, CellStyleCache styles) {
+        this.sheet = sheet;
+        this.styles = styles;
+
+        writeHeaders();
+    }
+
+    private void writeHeaders() {
+        CellStyle headerStyle = this.styles.get(StyleDescriptor.HEADER);
+        Row headerGroupRow = this.sheet.createRow(0);
+
+        int idx = 0;
+        for (HeaderGroup headerGroup : HEADER_GROUPS) {
+            Cell firstCellOfGroup = headerGroupRow.createCell(idx);
+            firstCellOfGroup.setCellValue(headerGroup.name());
+            firstCellOfGroup.setCellStyle(headerStyle);
+
+            CellRangeAddress headerGroupRegion = new CellRangeAddress(0, 0, idx, idx + headerGroup.size() - 1);
+            this.sheet.addMergedRegion(headerGroupRegion);
+
+            idx += headerGroup.size();
+        }
+
+        Row headerRow = this.sheet.createRow(1);
+
+        for (int col = 0; col < ExportColumns.HEADERS.size(); col++) {
+            Cell headerCell = headerRow.createCell(col);
+            headerCell.setCellValue(ExportColumns.HEADERS.get(col));
+            headerCell.setCellStyle(headerStyle);
+            this.columnWidths.track(col, ExportColumns.HEADERS.get(col));
+        }
+    }
+
+    void writeRows(List<PreparedRow> preparedRows) {
+        for (PreparedRow preparedRow : preparedRows) {
+            this.rowNum++;
+            writeStockRow(preparedRow, this.sheet.createRow(this.rowNum));
+        }
+    }
+
+    private void writeStockRow(PreparedRow preparedRow, Row stockRow) {
+        for (int col = 0; col < ExportColumns.CELL_FILLERS.size(); col++) {
+            try {
+                writeRowCell(preparedRow, stockRow, col);
+            } catch (RuntimeException rtEx) {
+                LOG.error("Problem writing cell idx [{}] for share [{}].", col, preparedRow.stock().stock());
+            }
+        }
+    }
+
+    private void writeRowCell(PreparedRow preparedRow, Row stockRow, int col) {
+        Cell cellByIndex = stockRow.createCell(col);
+        Object value = preparedRow.values()[col];
+
+        if (value != null) {
+            ExportColumns.CELL_FILLERS.get(col).cellConsumer().accept(cellByIndex, preparedRow.stock(), value);
+            this.columnWidths.track(col, value);
+        }
+
+        cellByIndex.setCellStyle(this.styles.get(preparedRow.styles()[col]));
+    }
+
+    /**
+     * Adds the auto filter and sets the estimated column widths.
+     *
+     * @return the number of stock rows written.
+     */
+    int finish() {
+        this.sheet.setAutoFilter(new CellRangeAddress(1, 1, 0, ExportColumns.HEADERS.size()));
+
+        // autoSizeColumn would only see the rows still in the window, so widths are estimated while writing.
+        this.columnWidths.applyTo(this.sheet);
+
+        return this.rowNum - 1;
+    }
+}
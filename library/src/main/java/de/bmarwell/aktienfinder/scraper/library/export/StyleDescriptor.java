@@ -0,0 +1,45 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.library.export;
+
+import java.util.Optional;
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.ss.usermodel.IndexedColors;
+
+/**
+ * Describes a cell style. Equal descriptors map to the same {@link org.apache.poi.ss.usermodel.CellStyle}
+ * in a {@link CellStyleCache}.
+ *
+ * @param fillColor the solid fill colour, or empty for no fill.
+ * @param dataFormat the number format, e.g. {@code 0.00}, or empty for the general format.
+ * @param alignment the horizontal alignment.
+ */
+public record StyleDescriptor(
+        Optional<IndexedColors> fillColor, Optional<String> dataFormat, HorizontalAlignment alignment) {
+
+    public static final StyleDescriptor DEFAULT =
+            new StyleDescriptor(Optional.empty(), Optional.empty(), HorizontalAlignment.GENERAL);
+
+    public static final StyleDescriptor TWO_DIGITS =
+            new StyleDescriptor(Optional.empty(), Optional.of("0.00"), HorizontalAlignment.GENERAL);
+
+    public static final StyleDescriptor HEADER = new StyleDescriptor(
+            Optional.of(IndexedColors.GREY_25_PERCENT), Optional.empty(), HorizontalAlignment.CENTER);
+
+    public static StyleDescriptor filled(IndexedColors fillColor) {
+        return new StyleDescriptor(Optional.of(fillColor), Optional.empty(), HorizontalAlignment.GENERAL);
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.library.scrape;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A bounded queue between two pipeline stages running on different threads.
+ *
+ * <p>The producer calls {@link #put(Object)} for each element and {@link #complete()} once it is done.
+ * The consumer iterates over this handoff exactly once; the iterator blocks until the next element is available
+ * and ends after {@link #complete()}. Because the queue is bounded, a fast producer is slowed down to the pace
+ * of the consumer instead of buffering everything.</p>
+ *
+ * <p>If the consumer gives up, it calls {@link #cancel()}, so a blocked producer is released with a
+ * {@link CancellationException} instead of waiting forever.</p>
+ *
+ * @param <T> the element type.
+ */
+public final class BoundedHandoff<T> implements Iterable<T> {
+
+    private static final Object END = new Object();
+
+    private static final long POLL_INTERVAL_MILLIS = 100L;
+
+    private final BlockingQueue<Object> queue;
+
+    private volatile boolean cancelled;
+
+    public BoundedHandoff(int capacity) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Hands over an element, waiting while the queue is full.
+     *
+     * @param element the element, must not be {@code null}.
+     * @throws InterruptedException if interrupted while waiting.
+     * @throws CancellationException if the consumer cancelled this handoff.
+     */
+    public void put(T element) throws InterruptedException {
+        offer(element);
+    }
+
+    /**
+     * Signals that no more elements follow. Has no effect if the consumer already cancelled.
+     *
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public void complete() throws InterruptedException {
+        try {
+            offer(END);
+        } catch (CancellationException cancelled) {
+            // nobody is listening anymore.
+        }
+    }
+
+    /**
+     * Releases a producer waiting in {@link #put(Object)} and ends the iteration.
+     * Elements not yet consumed are dropped.
+     */
+    public void cancel() {
+        this.cancelled = true;
+
+        while (!this.queue.offer(END)) {
+            this.queue.clear();
+        }
+    }
+
+    private void offer(Object element) throws InterruptedException {
+        while (!this.cancelled) {
+            if (this.queue.offer(element, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        }
+
+        throw new CancellationException("consumer cancelled the handoff");
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<>() {
+            private Object next;
+
+            @Override
+            public boolean hasNext() {
+                if (this.next == null) {
+                    this.next = take();
+                }
+
+                return this.next != END;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                T element = (T) this.next;
+                this.next = null;
+
+                return element;
+            }
+        };
+    }
+
+    private Object take() {
+        try {
+            return this.queue.take();
+        } catch (InterruptedException interruptedException) {
+            Thread.currentThread().interrupt();
+            this.cancelled = true;
+
+            return END;
+        }
+    }
+}
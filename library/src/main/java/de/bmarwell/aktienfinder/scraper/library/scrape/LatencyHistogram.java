@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.library.scrape;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free latency histogram with fixed buckets, like the wait-time histogram of the pool metrics.
+ */
+final class LatencyHistogram {
+
+    /**
+     * Upper bounds (inclusive) of the buckets in milliseconds. Page loads take seconds, so the buckets
+     * reach up to the navigation timeouts. An additional overflow bucket collects everything above.
+     */
+    static final List<Long> BUCKETS_MILLIS =
+            List.of(10L, 50L, 100L, 250L, 500L, 1_000L, 2_500L, 5_000L, 10_000L, 15_000L, 30_000L, 60_000L);
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS_MILLIS.size() + 1);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    void record(long nanos) {
+        long millis = nanos / 1_000_000L;
+        int bucket = 0;
+
+        while (bucket < BUCKETS_MILLIS.size() && millis > BUCKETS_MILLIS.get(bucket)) {
+            bucket++;
+        }
+
+        this.buckets.incrementAndGet(bucket);
+        this.count.increment();
+        this.sumNanos.add(nanos);
+        this.maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    RunStatisticsSnapshot.PhaseLatency snapshot() {
+        long total = this.count.sum();
+        Duration max = Duration.ofNanos(this.maxNanos.get());
+
+        if (total == 0L) {
+            return new RunStatisticsSnapshot.PhaseLatency(0L, Duration.ZERO, Duration.ZERO, Duration.ZERO, max);
+        }
+
+        return new RunStatisticsSnapshot.PhaseLatency(
+                total,
+                Duration.ofNanos(this.sumNanos.sum() / total),
+                percentile(total, 0.5d, max),
+                percentile(total, 0.95d, max),
+                max);
+    }
+
+    /**
+     * Returns the upper bound of the bucket containing the percentile, or the maximum for the overflow bucket.
+     */
+    private Duration percentile(long total, double percentile, Duration max) {
+        long threshold = (long) Math.ceil(total * percentile);
+        long seen = 0L;
+
+        for (int bucket = 0; bucket < BUCKETS_MILLIS.size(); bucket++) {
+            seen += this.buckets.get(bucket);
+
+            if (seen >= threshold) {
+                Duration bound = Duration.ofMillis(BUCKETS_MILLIS.get(bucket));
+                return bound.compareTo(max) < 0 ? bound : max;
+            }
+        }
+
+        return max;
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.library.scrape;
+
+/**
+ * The phases of a run whose latencies are tracked by {@link RunStatistics}.
+ */
+public enum RunPhase {
+    /** Reading the members of one index. */
+    DOWNLOAD,
+    /** Looking up the profile URL of a stock on dividendenfinder.de. */
+    RESOLVE,
+    /** Loading the aktienfinder.net profile, including retries. */
+    AKTIENFINDER,
+    /** Loading the risk figures from finanzen.net. */
+    FINANZEN_NET,
+    /** Writing the output file. */
+    EXPORT
+}
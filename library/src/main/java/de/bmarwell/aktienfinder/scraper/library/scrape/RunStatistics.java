@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.library.scrape;
+
+import de.bmarwell.aktienfinder.scraper.library.caching.PoolStatistics;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects throughput, per-phase latencies and failure causes of a scrape or download run.
+ *
+ * <p>All recording methods are lock-free and cheap enough to be called for every stock and phase.
+ * Use {@link #snapshot(PoolStatistics, int)} to read the current values, e.g. for periodic progress output.</p>
+ */
+public final class RunStatistics {
+
+    private final long startNanos = System.nanoTime();
+
+    private final Map<RunPhase, LatencyHistogram> latencies = new EnumMap<>(RunPhase.class);
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final Map<String, LongAdder> failuresByCause = new ConcurrentHashMap<>();
+
+    private volatile boolean inputComplete;
+
+    public RunStatistics() {
+        for (RunPhase phase : RunPhase.values()) {
+            // filled once, only read afterwards.
+            this.latencies.put(phase, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Records the duration of one phase for one stock or index.
+     *
+     * @param phase the phase.
+     * @param startNanos the {@link System#nanoTime()} when the phase started.
+     */
+    public void recordPhase(RunPhase phase, long startNanos) {
+        this.latencies.get(phase).record(System.nanoTime() - startNanos);
+    }
+
+    public void recordSubmitted() {
+        this.submitted.increment();
+    }
+
+    /**
+     * Signals that all input was read, so {@link RunStatisticsSnapshot#eta()} can be estimated.
+     */
+    public void recordInputComplete() {
+        this.inputComplete = true;
+    }
+
+    public void recordSuccess() {
+        this.succeeded.increment();
+    }
+
+    /**
+     * Records a failed stock or index.
+     *
+     * @param cause the failure, grouped by its class name.
+     */
+    public void recordFailure(Throwable cause) {
+        recordFailure(cause == null ? "unknown" : cause.getClass().getSimpleName());
+    }
+
+    /**
+     * Records a failed stock or index without an exception.
+     *
+     * @param causeName a short name of the cause, e.g. {@code EmptyIndex}.
+     */
+    public void recordFailure(String causeName) {
+        this.failed.increment();
+        this.failuresByCause.computeIfAbsent(causeName, key -> new LongAdder()).increment();
+    }
+
+    /**
+     * Returns a snapshot of the current values.
+     *
+     * @param poolStatistics the statistics of the browser pool used by the run.
+     * @param poolCapacity the maximum number of browser instances of that pool.
+     * @return a point-in-time copy of all counters and latencies.
+     */
+    public RunStatisticsSnapshot snapshot(PoolStatistics poolStatistics, int poolCapacity) {
+        Map<RunPhase, RunStatisticsSnapshot.PhaseLatency> phaseLatencies = new EnumMap<>(RunPhase.class);
+        this.latencies.forEach((phase, histogram) -> phaseLatencies.put(phase, histogram.snapshot()));
+
+        Map<String, Long> failures = new TreeMap<>();
+        this.failuresByCause.forEach((cause, count) -> failures.put(cause, count.sum()));
+
+        return new RunStatisticsSnapshot(
+                Duration.ofNanos(System.nanoTime() - this.startNanos),
+                this.submitted.sum(),
+                this.inputComplete,
+                this.succeeded.sum(),
+                this.failed.sum(),
+                failures,
+                phaseLatencies,
+                poolStatistics,
+                poolCapacity);
+    }
+}
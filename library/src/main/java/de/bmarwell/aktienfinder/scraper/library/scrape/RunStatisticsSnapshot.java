@@ -0,0 +1,143 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.library.scrape;
+
+import de.bmarwell.aktienfinder.scraper.library.caching.PoolStatistics;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Point-in-time copy of the values collected by {@link RunStatistics}.
+ *
+ * @param elapsed time since the run started.
+ * @param submitted number of stocks (or indices) started so far.
+ * @param inputComplete whether all input was read, i.e. {@code submitted} is the final total.
+ * @param succeeded number of stocks (or indices) completed successfully.
+ * @param failed number of stocks (or indices) which failed or timed out.
+ * @param failuresByCause number of failures per exception class name, sorted by name.
+ * @param phaseLatencies latencies per phase; phases without samples have a count of zero.
+ * @param poolStatistics statistics of the browser pool used by the run.
+ * @param poolCapacity the maximum number of browser instances of that pool.
+ */
+public record RunStatisticsSnapshot(
+        Duration elapsed,
+        long submitted,
+        boolean inputComplete,
+        long succeeded,
+        long failed,
+        Map<String, Long> failuresByCause,
+        Map<RunPhase, PhaseLatency> phaseLatencies,
+        PoolStatistics poolStatistics,
+        int poolCapacity) {
+
+    public RunStatisticsSnapshot {
+        failuresByCause = Collections.unmodifiableMap(new TreeMap<>(failuresByCause));
+        phaseLatencies = Map.copyOf(phaseLatencies);
+    }
+
+    /**
+     * Latencies of one phase.
+     *
+     * @param count number of samples.
+     * @param mean mean duration.
+     * @param p50 estimated median, the upper bound of its histogram bucket.
+     * @param p95 estimated 95th percentile, the upper bound of its histogram bucket.
+     * @param max longest duration.
+     */
+    public record PhaseLatency(long count, Duration mean, Duration p50, Duration p95, Duration max) {}
+
+    public long completed() {
+        return succeeded + failed;
+    }
+
+    public double perMinute() {
+        long elapsedMillis = elapsed.toMillis();
+
+        if (elapsedMillis == 0L) {
+            return 0.0d;
+        }
+
+        return completed() * 60_000.0d / elapsedMillis;
+    }
+
+    /**
+     * Share of the browser instances currently in use.
+     *
+     * @return a value between {@code 0.0} (idle) and {@code 1.0} (every instance busy).
+     */
+    public double poolSaturation() {
+        if (poolCapacity <= 0) {
+            return 0.0d;
+        }
+
+        return Math.min(1.0d, (double) poolStatistics.inUse() / poolCapacity);
+    }
+
+    /**
+     * Estimates the remaining time from the current rate.
+     *
+     * @return the estimate, or empty while the input is still being read or nothing completed yet.
+     */
+    public Optional<Duration> eta() {
+        long completed = completed();
+
+        if (!inputComplete || completed == 0L) {
+            return Optional.empty();
+        }
+
+        long remaining = Math.max(0L, submitted - completed);
+
+        return Optional.of(elapsed.multipliedBy(remaining).dividedBy(completed));
+    }
+
+    public String toSummary() {
+        String latencies = phaseLatencies.entrySet().stream()
+                .filter(phase -> phase.getValue().count() > 0L)
+                .sorted(Map.Entry.comparingByKey())
+                .map(phase -> String.format(
+                        Locale.ROOT,
+                        "%s p50<=%dms p95<=%dms",
+                        phase.getKey(),
+                        phase.getValue().p50().toMillis(),
+                        phase.getValue().p95().toMillis()))
+                .collect(Collectors.joining(", "));
+
+        return String.format(
+                Locale.ROOT,
+                "%d/%d%s done (%d ok, %d failed %s), %.1f/min, ETA %s, pool %.0f%% busy, %d wait timeouts; %s",
+                completed(),
+                submitted,
+                inputComplete ? "" : "+",
+                succeeded,
+                failed,
+                failuresByCause,
+                perMinute(),
+                eta().map(RunStatisticsSnapshot::formatDuration).orElse("unknown"),
+                poolSaturation() * 100.0d,
+                poolStatistics.timeouts(),
+                latencies);
+    }
+
+    private static String formatDuration(Duration duration) {
+        return String.format(
+                Locale.ROOT, "%d:%02d:%02d", duration.toHours(), duration.toMinutesPart(), duration.toSecondsPart());
+    }
+}
@@ -23,9 +23,13 @@ import com.microsoft.playwright.Browser.NewContextOptions;
 import com.microsoft.playwright.BrowserContext;
 import com.microsoft.playwright.Page;
 import com.microsoft.playwright.Page.NavigateOptions;
-import com.microsoft.playwright.Playwright;
 import com.microsoft.playwright.PlaywrightException;
-import de.bmarwell.aktienfinder.scraper.library.caching.PoorMansCache;
+import de.bmarwell.aktienfinder.scraper.library.browser.BrowserEngine;
+import de.bmarwell.aktienfinder.scraper.library.browser.BrowserKey;
+import de.bmarwell.aktienfinder.scraper.library.browser.BrowserPool;
+import de.bmarwell.aktienfinder.scraper.library.browser.BrowserPoolStatistics;
+import de.bmarwell.aktienfinder.scraper.library.caching.PoolMetrics;
+import de.bmarwell.aktienfinder.scraper.library.caching.PoolStatistics;
 import de.bmarwell.aktienfinder.scraper.library.caching.PoorMansCache.Instance;
 import de.bmarwell.aktienfinder.scraper.value.AktienfinderStock;
 import de.bmarwell.aktienfinder.scraper.value.Anlagestrategie;
@@ -44,9 +48,11 @@ import java.io.ByteArrayOutputStream;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CancellationException;
@@ -56,6 +62,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -70,8 +77,29 @@ public class ScrapeService implements AutoCloseable {
                 return thread;
             });
 
-    private final PoorMansCache<Playwright> browserCache =
-            new PoorMansCache<>(ExecutorHelper.getNumberThreads(), this::createPlaywright);
+    /**
+     * The browser used for both the dividendenfinder API lookup and the profile scrape.
+     * Firefox matches the user agent sent in {@link #contextOptions()}.
+     */
+    static final BrowserKey SCRAPE_BROWSER = BrowserKey.headless(BrowserEngine.FIREFOX);
+
+    private final BrowserPool browserPool;
+
+    private final RunStatistics runStatistics = new RunStatistics();
+
+    public ScrapeService() {
+        this(new PoolMetrics());
+    }
+
+    /**
+     * Creates a scrape service whose browser pool records into the given metrics.
+     *
+     * @param poolMetrics the metrics to record to, e.g. shared across several short-lived services.
+     */
+    public ScrapeService(PoolMetrics poolMetrics) {
+        this.browserPool =
+                new BrowserPool(Map.of(SCRAPE_BROWSER, ExecutorHelper.getNumberThreads()), 1, key -> poolMetrics);
+    }
 
     /**
      * Scrapes data for a set of provided stocks asynchronously.
@@ -81,38 +109,90 @@ public class ScrapeService implements AutoCloseable {
      * @return a list of {@code AktienfinderStock} objects containing the scraped data for the provided stocks.
      */
     public List<AktienfinderStock> scrapeAll(Collection<Stock> stockIsins) {
+        return scrapeAll(stockIsins.iterator());
+    }
+
+    /**
+     * Scrapes data for stocks which are read lazily, e.g. while an input file is still being parsed.
+     *
+     * <p>Each stock is submitted as soon as it was read. At most {@link #maxStocksInFlight()} stocks are
+     * submitted but not yet collected, so the iterator is only advanced as fast as the stocks are scraped.</p>
+     *
+     * @param stocks the stocks to scrape. Only read from the calling thread.
+     * @return a list of {@code AktienfinderStock} objects in input order, skipping stocks which failed.
+     */
+    public List<AktienfinderStock> scrapeAll(Iterator<Stock> stocks) {
         var resultList = new ArrayList<AktienfinderStock>();
-        var threads = new ArrayList<Future<StockScrapingResult>>();
+        scrapeAll(stocks, resultList::add);
 
-        for (Stock stock : stockIsins) {
-            var scraperThread = executor.submit(() -> this.scrape(stock));
+        return List.copyOf(resultList);
+    }
 
-            threads.add(scraperThread);
-        }
+    /**
+     * Like {@link #scrapeAll(Iterator)}, but hands each successful result to the given consumer instead of
+     * collecting them, e.g. to export the results while later stocks are still being scraped.
+     *
+     * @param stocks the stocks to scrape. Only read from the calling thread.
+     * @param resultConsumer receives the results in input order, called from the calling thread.
+     */
+    public void scrapeAll(Iterator<Stock> stocks, Consumer<AktienfinderStock> resultConsumer) {
+        var threads = new ArrayDeque<Future<StockScrapingResult>>();
+        int maxStocksInFlight = maxStocksInFlight();
+
+        while (stocks.hasNext()) {
+            Stock stock = stocks.next();
+            threads.add(executor.submit(() -> this.scrape(stock)));
+            this.runStatistics.recordSubmitted();
 
-        for (var thread : threads) {
-            if (thread == null) {
-                continue;
+            if (threads.size() >= maxStocksInFlight) {
+                collect(threads.poll(), resultConsumer);
             }
+        }
 
-            try {
-                StockScrapingResult aktienfinderStock = thread.get(30, TimeUnit.SECONDS);
-                if (aktienfinderStock.isSuccessful()) {
-                    resultList.add(aktienfinderStock.aktienfinderStock());
-                }
-            } catch (TimeoutException e) {
-                thread.cancel(true);
-                LOG.warn("Thread timed out: [{}]", thread);
-            } catch (CancellationException | ExecutionException | InterruptedException ex) {
-                if (ex instanceof InterruptedException) {
-                    Thread.currentThread().interrupt();
-                }
+        this.runStatistics.recordInputComplete();
+
+        while (!threads.isEmpty()) {
+            collect(threads.poll(), resultConsumer);
+        }
+    }
 
-                LOG.warn("Thread not finished: [{}]", thread, ex);
+    private void collect(Future<StockScrapingResult> thread, Consumer<AktienfinderStock> resultConsumer) {
+        StockScrapingResult aktienfinderStock;
+
+        try {
+            aktienfinderStock = thread.get(30, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            thread.cancel(true);
+            LOG.warn("Thread timed out: [{}]", thread);
+            this.runStatistics.recordFailure(e);
+            return;
+        } catch (CancellationException | ExecutionException | InterruptedException ex) {
+            if (ex instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
             }
+
+            LOG.warn("Thread not finished: [{}]", thread, ex);
+            this.runStatistics.recordFailure(ex instanceof ExecutionException ? ex.getCause() : ex);
+            return;
         }
 
-        return List.copyOf(resultList);
+        // outside the try block, so exceptions thrown by the consumer are not mistaken for scrape failures.
+        if (!aktienfinderStock.isSuccessful()) {
+            this.runStatistics.recordFailure(aktienfinderStock.error());
+            return;
+        }
+
+        this.runStatistics.recordSuccess();
+        resultConsumer.accept(aktienfinderStock.aktienfinderStock());
+    }
+
+    /**
+     * Twice the number of scrape threads, so the next stocks are already queued when a thread becomes free.
+     *
+     * @return the maximum number of submitted but not yet collected stocks in {@link #scrapeAll(Iterator)}.
+     */
+    static int maxStocksInFlight() {
+        return ExecutorHelper.getNumberThreads() * 2;
     }
 
     /**
@@ -126,7 +206,9 @@ public class ScrapeService implements AutoCloseable {
      * @return An {@code Optional<AktienfinderStock>} containing detailed information about the stock if available; otherwise {@code Optional.empty()}.
      */
     public StockScrapingResult scrape(Stock inStock) {
+        long resolveStart = System.nanoTime();
         URI canonicalDataUrl = getCanonicalDataUrl(inStock);
+        this.runStatistics.recordPhase(RunPhase.RESOLVE, resolveStart);
 
         var xhrResponses = new HashMap<String, String>();
         xhrResponses.put(BEWERTUNG, "unbewertet");
@@ -136,10 +218,9 @@ public class ScrapeService implements AutoCloseable {
 
         Throwable lastException = null;
 
-        try (Instance<Playwright> playwrightInstance = this.browserCache.getBlocking()) {
-            try (Browser browser = playwrightInstance.instance().firefox().launch();
-                    BrowserContext browserContext = browser.newContext(contextOptions())) {
-
+        try (Instance<Browser> browser = this.browserPool.getBlocking(SCRAPE_BROWSER)) {
+            try (BrowserContext browserContext = browser.instance().newContext(contextOptions())) {
+                long aktienfinderStart = System.nanoTime();
                 AktienfinderScraper aktienfinderScraper = new AktienfinderScraper(browserContext);
                 aktienfinderScraper.loadAndPopulate(inStock, xhrResponses, canonicalDataUrl);
 
@@ -152,8 +233,12 @@ public class ScrapeService implements AutoCloseable {
                     aktienfinderScraper.loadAndPopulate(inStock, xhrResponses, canonicalDataUrl);
                 }
 
+                this.runStatistics.recordPhase(RunPhase.AKTIENFINDER, aktienfinderStart);
+
+                long finanzenNetStart = System.nanoTime();
                 FinanzenNetScraper finanzenNetScraper = new FinanzenNetScraper(browserContext);
                 finanzenNetRisiko = finanzenNetScraper.getFinanzenNetRisiko(inStock);
+                this.runStatistics.recordPhase(RunPhase.FINANZEN_NET, finanzenNetStart);
             }
         } catch (PlaywrightException autoCloseEx) {
             LOG.error("Problem running playwright", autoCloseEx);
@@ -269,9 +354,8 @@ public class ScrapeService implements AutoCloseable {
         var searchUri = URI.create("https://dividendenfinder.de/api/StockProfile/List/"
                 + stock.isin().value().strip());
 
-        try (Instance<Playwright> playwright = this.browserCache.getBlocking()) {
-            try (Browser browser = playwright.instance().chromium().launch();
-                    BrowserContext context = browser.newContext(contextOptions());
+        try (Instance<Browser> browser = this.browserPool.getBlocking(SCRAPE_BROWSER)) {
+            try (BrowserContext context = browser.instance().newContext(contextOptions());
                     Page page = context.newPage()) {
                 var navigateOptions = new NavigateOptions();
                 navigateOptions.setTimeout(10_000L);
@@ -326,17 +410,50 @@ public class ScrapeService implements AutoCloseable {
         }
     }
 
+    /**
+     * Returns the current statistics of the browser pool.
+     *
+     * @return a snapshot of the pool counters, gauges and wait times.
+     */
+    public PoolStatistics getPoolStatistics() {
+        return this.browserPool.getPoolStatistics(SCRAPE_BROWSER);
+    }
+
+    /**
+     * Returns the throughput, phase latencies and failures of all stocks scraped by this service so far.
+     *
+     * @return a snapshot including the saturation of the browser pool.
+     */
+    public RunStatisticsSnapshot getRunStatistics() {
+        return this.runStatistics.snapshot(getPoolStatistics(), ExecutorHelper.getNumberThreads());
+    }
+
+    /**
+     * Records a phase which happens outside of this service, e.g. the export of the results.
+     *
+     * @param phase the phase.
+     * @param startNanos the {@link System#nanoTime()} when the phase started.
+     */
+    public void recordPhase(RunPhase phase, long startNanos) {
+        this.runStatistics.recordPhase(phase, startNanos);
+    }
+
+    /**
+     * Returns the statistics of the browser pool per browser key, including memory usage.
+     *
+     * @return one entry per browser key in use.
+     */
+    public List<BrowserPoolStatistics> getBrowserPoolStatistics() {
+        return this.browserPool.getStatistics();
+    }
+
     @Override
     public void close() throws Exception {
         this.executor.shutdown();
-        this.browserCache.close();
+        this.browserPool.close();
         this.executor.shutdownNow();
     }
 
-    private Playwright createPlaywright() {
-        return Playwright.create();
-    }
-
     private NewContextOptions contextOptions() {
         NewContextOptions newContextOptions = new NewContextOptions();
         newContextOptions.setAcceptDownloads(false);
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.library.scrape;
+
+import de.bmarwell.aktienfinder.scraper.value.Isin;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+
+/**
+ * Selects a deterministic part of the stocks, so a run can be split across several machines without coordination.
+ *
+ * <p>A stock belongs to shard {@code k} of {@code n} if the CRC-32 of its ISIN modulo {@code n} is {@code k - 1}.
+ * The hash only depends on the ISIN, so every node computes the same assignment regardless of input order, JVM or
+ * locale, and the shards {@code 1/n} to {@code n/n} together contain every stock exactly once.</p>
+ *
+ * @param index the shard number, starting at {@code 1}.
+ * @param count the total number of shards.
+ */
+public record Shard(int index, int count) {
+
+    public Shard {
+        if (count < 1 || index < 1 || index > count) {
+            throw new IllegalArgumentException("Invalid shard " + index + "/" + count + ", expected 1 <= k <= n.");
+        }
+    }
+
+    /**
+     * Parses a shard in the form {@code k/n}, e.g. {@code 2/4}.
+     *
+     * @param shard the shard as given on the command line.
+     * @return the parsed shard.
+     * @throws IllegalArgumentException if the text is not of the form {@code k/n} with {@code 1 <= k <= n}.
+     */
+    public static Shard parse(String shard) {
+        String[] parts = shard.strip().split("/", -1);
+
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Invalid shard [" + shard + "], expected k/n.");
+        }
+
+        try {
+            return new Shard(Integer.parseInt(parts[0].strip()), Integer.parseInt(parts[1].strip()));
+        } catch (NumberFormatException nfe) {
+            throw new IllegalArgumentException("Invalid shard [" + shard + "], expected k/n.", nfe);
+        }
+    }
+
+    /**
+     * Whether the stock with the given ISIN is scraped by this shard.
+     *
+     * @param isin the ISIN of the stock.
+     * @return {@code true} if this shard is responsible for the stock.
+     */
+    public boolean contains(Isin isin) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(isin.value().getBytes(StandardCharsets.US_ASCII));
+
+        return crc32.getValue() % count == index - 1;
+    }
+
+    @Override
+    public String toString() {
+        return index + "/" + count;
+    }
+}
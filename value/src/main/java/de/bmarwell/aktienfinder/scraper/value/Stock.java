@@ -18,6 +18,16 @@ package de.bmarwell.aktienfinder.scraper.value;
 import java.util.Objects;
 import java.util.Optional;
 
+/**
+ * A stock as read from an index or given by the user.
+ *
+ * <p>Two stocks are equal if they have the same ISIN. Name and index are ignored, because different
+ * sources spell names differently and the same security can be a member of several indices.</p>
+ *
+ * @param name the name of the stock, might be empty if only the ISIN is known.
+ * @param isin the ISIN identifying the security.
+ * @param index the name of the index (or comma-separated indices) the stock was read from.
+ */
 public record Stock(String name, Isin isin, Optional<String> index) {
 
     @Override
@@ -29,11 +39,11 @@ public record Stock(String name, Isin isin, Optional<String> index) {
             return false;
         }
         Stock stock = (Stock) o;
-        return Objects.equals(name, stock.name) && Objects.equals(isin, stock.isin);
+        return Objects.equals(isin, stock.isin);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(name, isin);
+        return Objects.hashCode(isin);
     }
 }
@@ -16,10 +16,13 @@
 package de.bmarwell.aktienfinder.scraper.web.rest;
 
 import de.bmarwell.aktienfinder.scraper.db.IsinUpdateRepository;
+import de.bmarwell.aktienfinder.scraper.db.dto.ErrorCursor;
 import de.bmarwell.aktienfinder.scraper.db.dto.StockBaseData;
+import de.bmarwell.aktienfinder.scraper.db.dto.StockErrorSummary;
 import de.bmarwell.aktienfinder.scraper.value.Isin;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
@@ -29,16 +32,23 @@ import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.eclipse.microprofile.openapi.annotations.enums.ParameterIn;
 import org.eclipse.microprofile.openapi.annotations.parameters.Parameter;
+import org.jspecify.annotations.Nullable;
 
 @Path(("/stocks"))
 @Consumes({MediaType.APPLICATION_JSON})
 @Produces({MediaType.APPLICATION_JSON})
 public class StockManagement {
 
+    /** Upper bound for {@code limit}, so a single request cannot load the whole table. */
+    private static final int MAX_ERRORS_PER_PAGE = 500;
+
     public StockManagement() {}
 
     @Inject
@@ -60,40 +70,89 @@ public class StockManagement {
                 .build();
     }
 
+    @GET
+    @Path(("/errors"))
+    public Response getErrors(
+            @Parameter(description = "maximum number of errors to return", in = ParameterIn.QUERY, name = "limit")
+                    @QueryParam("limit")
+                    @DefaultValue("50")
+                    int limit,
+            @Parameter(description = "'next' of the previous page", in = ParameterIn.QUERY, name = "after")
+                    @QueryParam("after")
+                    String after,
+            @Parameter(description = "include the stack traces", in = ParameterIn.QUERY, name = "withMessage")
+                    @QueryParam("withMessage")
+                    @DefaultValue("false")
+                    boolean withMessage) {
+        if (limit < 1 || limit > MAX_ERRORS_PER_PAGE) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("message", "limit must be between 1 and " + MAX_ERRORS_PER_PAGE))
+                    .build();
+        }
+
+        ErrorCursor cursor;
+        try {
+            cursor = after == null || after.isBlank() ? null : ErrorCursor.fromToken(after);
+        } catch (IllegalArgumentException iae) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                    .entity(Map.of("message", iae.getMessage()))
+                    .build();
+        }
+
+        List<StockErrorSummary> errors = isinRepository.getErrors(cursor, limit);
+        Map<Isin, String> messages = withMessage ? getErrorMessages(errors) : null;
+        List<Map<String, Object>> entities = new ArrayList<>(errors.size());
+        for (StockErrorSummary error : errors) {
+            entities.add(toEntity(error, messages));
+        }
+
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("errors", entities);
+        if (errors.size() == limit) {
+            page.put("next", errors.getLast().cursor().toToken());
+        }
+
+        return Response.ok().entity(page).build();
+    }
+
     @GET
     @Path(("/latestError"))
     public Response getLatestError() {
-        var latesterror = isinRepository.getLatestError();
+        var latestError = isinRepository.getErrors(null, 1);
 
-        if (latesterror.isEmpty()) {
+        if (latestError.isEmpty()) {
             return Response.noContent().build();
         }
 
-        var stockBaseData = latesterror.orElseThrow();
-
         return Response.ok()
-                .entity(Map.of(
-                        "message",
-                                Optional.ofNullable(stockBaseData.getLastErrorMessage())
-                                        .orElse(""),
-                        "isin", stockBaseData.getIsin().value(),
-                        "name", stockBaseData.getName(),
-                        "errorCount", stockBaseData.getErrorRunCount(),
-                        "lastError",
-                                Optional.ofNullable(stockBaseData.getLastErrorRun())
-                                        .map(Instant::toString)
-                                        .orElse("NEVER"),
-                        "lastUpdate",
-                                Optional.ofNullable(stockBaseData.getLastUpdateRun())
-                                        .map(Instant::toString)
-                                        .orElse("NEVER"),
-                        "lastSuccess",
-                                Optional.ofNullable(stockBaseData.getLastSuccessfulRun())
-                                        .map(Instant::toString)
-                                        .orElse("NEVER")))
+                .entity(toEntity(latestError.getFirst(), getErrorMessages(latestError)))
                 .build();
     }
 
+    /** Loads the messages of a whole page at once instead of one query per row. */
+    private Map<Isin, String> getErrorMessages(List<StockErrorSummary> errors) {
+        return isinRepository.getErrorMessages(errors.stream().map(StockErrorSummary::isin).toList());
+    }
+
+    private Map<String, Object> toEntity(StockErrorSummary error, @Nullable Map<Isin, String> messages) {
+        Map<String, Object> entity = new LinkedHashMap<>();
+        if (messages != null) {
+            entity.put("message", messages.getOrDefault(error.isin(), ""));
+        }
+        entity.put("isin", error.isin().value());
+        entity.put("name", error.name());
+        entity.put("errorCount", error.errorRunCount());
+        entity.put("lastError", error.lastErrorRun().toString());
+        entity.put(
+                "lastUpdate",
+                Optional.ofNullable(error.lastUpdateRun()).map(Instant::toString).orElse("NEVER"));
+        entity.put(
+                "lastSuccess",
+                Optional.ofNullable(error.lastSuccessfulRun()).map(Instant::toString).orElse("NEVER"));
+
+        return entity;
+    }
+
     @Inject
     public void setIsinRepository(IsinUpdateRepository isinRepository) {
         this.isinRepository = isinRepository;
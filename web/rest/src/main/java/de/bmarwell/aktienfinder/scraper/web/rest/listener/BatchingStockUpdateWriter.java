@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.web.rest.listener;
+
+import de.bmarwell.aktienfinder.scraper.db.StockUpdateBatchRepository;
+import de.bmarwell.aktienfinder.scraper.db.dto.StockUpdateResult;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collects the outcomes of the scheduled updates and writes them in batches.
+ *
+ * <p>A batch is written as soon as it is full, or by {@link #flushIfDue()} once its oldest update waited
+ * longer than the maximum delay. Can be used by several scraping threads at once.</p>
+ */
+class BatchingStockUpdateWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchingStockUpdateWriter.class);
+
+    private final StockUpdateBatchRepository repository;
+
+    private final int maxBatchSize;
+
+    private final long maxDelayNanos;
+
+    private final Object lock = new Object();
+
+    private List<StockUpdateResult> pending = new ArrayList<>();
+
+    private long oldestPendingNanos;
+
+    BatchingStockUpdateWriter(StockUpdateBatchRepository repository, int maxBatchSize, Duration maxDelay) {
+        this.repository = repository;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = maxDelay.toNanos();
+    }
+
+    void add(StockUpdateResult update) {
+        List<StockUpdateResult> batch = null;
+
+        synchronized (this.lock) {
+            if (this.pending.isEmpty()) {
+                this.oldestPendingNanos = System.nanoTime();
+            }
+
+            this.pending.add(update);
+
+            if (this.pending.size() >= this.maxBatchSize) {
+                batch = takePending();
+            }
+        }
+
+        write(batch);
+    }
+
+    void flushIfDue() {
+        List<StockUpdateResult> batch = null;
+
+        synchronized (this.lock) {
+            if (!this.pending.isEmpty() && System.nanoTime() - this.oldestPendingNanos >= this.maxDelayNanos) {
+                batch = takePending();
+            }
+        }
+
+        write(batch);
+    }
+
+    void flush() {
+        List<StockUpdateResult> batch;
+
+        synchronized (this.lock) {
+            batch = takePending();
+        }
+
+        write(batch);
+    }
+
+    private List<StockUpdateResult> takePending() {
+        List<StockUpdateResult> batch = this.pending;
+        this.pending = new ArrayList<>();
+
+        return batch;
+    }
+
+    /** Writes outside the lock, so scraping threads can add updates in the meantime. */
+    private void write(List<StockUpdateResult> batch) {
+        if (batch == null || batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            this.repository.writeBatch(batch);
+            log.info("Wrote [{}] stock updates.", batch.size());
+        } catch (RuntimeException e) {
+            // the claims of these stocks expire, so they are scraped again later.
+            log.error("Unable to write [{}] stock updates.", batch.size(), e);
+        }
+    }
+}
@@ -16,12 +16,14 @@
 package de.bmarwell.aktienfinder.scraper.web.rest.listener;
 
 import de.bmarwell.aktienfinder.scraper.db.IsinUpdateRepository;
-import de.bmarwell.aktienfinder.scraper.db.ScrapingResultRepository;
-import de.bmarwell.aktienfinder.scraper.db.dto.StockBaseData;
+import de.bmarwell.aktienfinder.scraper.db.SchemaMigration;
+import de.bmarwell.aktienfinder.scraper.db.StockUpdateBatchRepository;
+import de.bmarwell.aktienfinder.scraper.db.dto.StockUpdateCandidate;
+import de.bmarwell.aktienfinder.scraper.db.dto.StockUpdateResult;
 import de.bmarwell.aktienfinder.scraper.library.scrape.ScrapeService;
-import de.bmarwell.aktienfinder.scraper.value.AktienfinderStock;
 import de.bmarwell.aktienfinder.scraper.value.Stock;
 import de.bmarwell.aktienfinder.scraper.value.StockScrapingResult;
+import de.bmarwell.aktienfinder.scraper.web.rest.metrics.BrowserPoolMetrics;
 import jakarta.annotation.Resource;
 import jakarta.enterprise.concurrent.ManagedScheduledExecutorService;
 import jakarta.inject.Inject;
@@ -29,8 +31,13 @@ import jakarta.inject.Singleton;
 import jakarta.servlet.ServletContextEvent;
 import jakarta.servlet.ServletContextListener;
 import jakarta.servlet.annotation.WebListener;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -41,14 +48,40 @@ public class StockUpdateListener implements ServletContextListener {
 
     private Logger log = LoggerFactory.getLogger(StockUpdateListener.class);
 
+    /** Number of stocks claimed and scraped per tick. */
+    static final int CLAIM_BATCH_SIZE = 3;
+
+    /** Long enough for a whole batch; renewed before each stock. */
+    static final Duration LEASE_DURATION = Duration.ofMinutes(10L);
+
+    /** Stocks updated more recently are not claimed. */
+    static final Duration MIN_UPDATE_INTERVAL = Duration.ofMinutes(10L);
+
+    /** Number of outcomes written in one transaction. */
+    static final int WRITE_BATCH_SIZE = 25;
+
+    /** Outcomes are written at the latest this long after the scrape; well within {@link #LEASE_DURATION}. */
+    static final Duration MAX_WRITE_DELAY = Duration.ofSeconds(30L);
+
+    /** Identifies this server, so several servers can share one database. */
+    private final String workerId = workerId();
+
     @Resource
     private ManagedScheduledExecutorService executor;
 
+    @Inject
+    SchemaMigration schemaMigration;
+
     @Inject
     IsinUpdateRepository isinUpdateRepository;
 
     @Inject
-    ScrapingResultRepository scrapingResultRepository;
+    StockUpdateBatchRepository stockUpdateBatchRepository;
+
+    @Inject
+    BrowserPoolMetrics browserPoolMetrics;
+
+    private BatchingStockUpdateWriter updateWriter;
 
     public StockUpdateListener() {
         // cdi
@@ -56,54 +89,97 @@ public class StockUpdateListener implements ServletContextListener {
 
     @Override
     public void contextInitialized(ServletContextEvent sce) {
+        // before anything reads the database; the scheduler then continues with the stalest stocks stored.
+        this.schemaMigration.migrate();
+
         var isinUpdateRepository1 = this.isinUpdateRepository;
-        var resultRepository = this.scrapingResultRepository;
+        var writer = new BatchingStockUpdateWriter(this.stockUpdateBatchRepository, WRITE_BATCH_SIZE, MAX_WRITE_DELAY);
+        this.updateWriter = writer;
         this.executor.scheduleAtFixedRate(
-                () -> updateOldestEntry(isinUpdateRepository1, resultRepository), 5L, 20L, TimeUnit.SECONDS);
+                () -> updateOldestEntries(isinUpdateRepository1, writer), 5L, 20L, TimeUnit.SECONDS);
+        this.executor.scheduleWithFixedDelay(writer::flushIfDue, 5L, 5L, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void contextDestroyed(ServletContextEvent sce) {
+        if (this.updateWriter != null) {
+            this.updateWriter.flush();
+        }
     }
 
-    private void updateOldestEntry(IsinUpdateRepository baseRepo, ScrapingResultRepository resultRepository) {
+    private void updateOldestEntries(IsinUpdateRepository baseRepo, BatchingStockUpdateWriter writer) {
         try {
-            Optional<StockBaseData> oldestUpdatedEntry = baseRepo.getOldestUpdatedEntry();
-            if (oldestUpdatedEntry.isEmpty()) {
+            Instant onlyUpdateIfBefore = Instant.now().minus(MIN_UPDATE_INTERVAL);
+            List<StockUpdateCandidate> claimedStocks =
+                    baseRepo.claimBatch(this.workerId, CLAIM_BATCH_SIZE, LEASE_DURATION, onlyUpdateIfBefore);
+
+            if (claimedStocks.isEmpty()) {
                 log.info("no stocks found to update.");
                 return;
             }
 
-            StockBaseData stockBaseData = oldestUpdatedEntry.orElseThrow();
-            Instant lastUpdated = stockBaseData.getLastUpdateRun();
+            log.info("Worker [{}] updating [{}] oldest entries.", this.workerId, claimedStocks.size());
 
-            Instant onlyUpdateIfBefore = Instant.now().minusSeconds(600L);
-            if (lastUpdated != null && lastUpdated.isAfter(onlyUpdateIfBefore)) {
-                log.info("Skipping update of {} as it is not 10 minutes old.", stockBaseData.getIsin());
-                return;
-            }
+            try (ScrapeService scrapeService = new ScrapeService(this.browserPoolMetrics.getPoolMetrics())) {
+                for (StockUpdateCandidate candidate : claimedStocks) {
+                    if (!baseRepo.renewLease(candidate.isin(), this.workerId, LEASE_DURATION)) {
+                        log.warn("Lost the lease of [{}], skipping.", candidate.isin());
+                        continue;
+                    }
 
-            log.info("Updating oldest entry {}", stockBaseData.getIsin());
+                    updateEntry(writer, scrapeService, candidate);
+                }
+            } catch (Exception e) {
+                log.error("Problem with the scrape service, releasing the remaining claims.", e);
+                claimedStocks.forEach(stock -> releaseQuietly(baseRepo, stock));
+            }
+        } catch (RuntimeException e) {
+            log.error("Error while updating oldest entries", e);
+        }
+    }
 
-            try (ScrapeService scrapeService = new ScrapeService()) {
-                var stock = new Stock(stockBaseData.getName(), stockBaseData.getIsin(), Optional.empty());
-                StockScrapingResult scrapingResult = scrapeService.scrape(stock);
+    private void updateEntry(
+            BatchingStockUpdateWriter writer, ScrapeService scrapeService, StockUpdateCandidate candidate) {
+        log.info("Updating oldest entry {}", candidate.isin());
 
-                if (!scrapingResult.isSuccessful()) {
-                    baseRepo.setUpdatedNowWithError(stockBaseData.getIsin(), scrapingResult.error());
-                    return;
-                }
+        try {
+            var stock = new Stock(candidate.name(), candidate.isin(), Optional.empty());
+            StockScrapingResult scrapingResult = scrapeService.scrape(stock);
 
-                AktienfinderStock stockResult = scrapingResult.aktienfinderStock();
-                resultRepository.updateScrapingResult(stockResult);
-                // only then:
-                baseRepo.setUpdatedNowSuccessful(
-                        stockBaseData.getIsin(), stockResult.stock().name());
-            } catch (Exception e) {
-                baseRepo.setUpdatedNowWithError(stockBaseData.getIsin(), e);
-                log.error("error while updating stock [{}]", stockBaseData, e);
+            if (!scrapingResult.isSuccessful()) {
+                writer.add(StockUpdateResult.failed(
+                        this.workerId, candidate.isin(), scrapingResult.error(), Instant.now()));
+                return;
             }
+
+            // written with the next batch, which also releases the claim.
+            writer.add(StockUpdateResult.successful(this.workerId, scrapingResult.aktienfinderStock(), Instant.now()));
         } catch (RuntimeException e) {
-            log.error("Error while updating oldest entry", e);
+            writer.add(StockUpdateResult.failed(this.workerId, candidate.isin(), e, Instant.now()));
+            log.error("error while updating stock [{}]", candidate, e);
         }
     }
 
+    private void releaseQuietly(IsinUpdateRepository baseRepo, StockUpdateCandidate candidate) {
+        try {
+            baseRepo.releaseLease(candidate.isin(), this.workerId);
+        } catch (RuntimeException releaseEx) {
+            // the lease expires on its own.
+            log.warn("Unable to release [{}].", candidate.isin(), releaseEx);
+        }
+    }
+
+    private static String workerId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException unknownHostException) {
+            host = "unknown";
+        }
+
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
     public void setExecutor(ManagedScheduledExecutorService executor) {
         this.executor = executor;
     }
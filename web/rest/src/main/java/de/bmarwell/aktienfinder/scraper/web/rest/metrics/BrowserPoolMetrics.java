@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2024.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package de.bmarwell.aktienfinder.scraper.web.rest.metrics;
+
+import de.bmarwell.aktienfinder.scraper.library.caching.PoolMetrics;
+import de.bmarwell.aktienfinder.scraper.library.caching.PoolStatistics;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import java.util.List;
+import java.util.function.Function;
+import org.eclipse.microprofile.metrics.Metadata;
+import org.eclipse.microprofile.metrics.MetricRegistry;
+import org.eclipse.microprofile.metrics.MetricUnits;
+import org.eclipse.microprofile.metrics.Tag;
+
+/**
+ * Holds the browser pool metrics shared by all {@code ScrapeService} instances of this application
+ * and exports them as MicroProfile Metrics gauges.
+ */
+@ApplicationScoped
+public class BrowserPoolMetrics {
+
+    private static final String PREFIX = "browserpool.";
+
+    private final PoolMetrics poolMetrics = new PoolMetrics();
+
+    @Inject
+    MetricRegistry metricRegistry;
+
+    public BrowserPoolMetrics() {
+        // cdi
+    }
+
+    @PostConstruct
+    void registerGauges() {
+        gauge("instances.created", "Browser instances created", MetricUnits.NONE, PoolStatistics::created);
+        gauge("instances.acquired", "Browser instances handed out", MetricUnits.NONE, PoolStatistics::acquired);
+        gauge("instances.evicted", "Idle browser instances evicted", MetricUnits.NONE, PoolStatistics::evicted);
+        gauge("instances.closed", "Idle browser instances closed", MetricUnits.NONE, PoolStatistics::closed);
+        gauge("instances.inUse", "Browser instances currently in use", MetricUnits.NONE, PoolStatistics::inUse);
+        gauge("instances.idle", "Browser instances currently idle", MetricUnits.NONE, PoolStatistics::idle);
+        gauge(
+                "wait.timeouts",
+                "Waits for a browser instance which timed out",
+                MetricUnits.NONE,
+                PoolStatistics::timeouts);
+        gauge("wait.count", "Waits for a browser instance", MetricUnits.NONE, PoolStatistics::waitCount);
+        gauge(
+                "wait.mean",
+                "Mean wait time for a browser instance",
+                MetricUnits.MILLISECONDS,
+                stats -> stats.waitMean().toMillis());
+        gauge(
+                "wait.max",
+                "Maximum wait time for a browser instance",
+                MetricUnits.MILLISECONDS,
+                stats -> stats.waitMax().toMillis());
+
+        registerWaitTimeBuckets();
+    }
+
+    private void registerWaitTimeBuckets() {
+        List<Long> bucketBounds = this.poolMetrics.snapshot().waitTimeBucketsMillis();
+        Metadata bucketMetadata = Metadata.builder()
+                .withName(PREFIX + "wait.bucket")
+                .withDescription("Number of waits for a browser instance with a wait time up to the given bound")
+                .build();
+
+        for (int bucket = 0; bucket <= bucketBounds.size(); bucket++) {
+            final int bucketIndex = bucket;
+            String bound = bucket < bucketBounds.size() ? String.valueOf(bucketBounds.get(bucket)) : "+Inf";
+
+            this.metricRegistry.gauge(
+                    bucketMetadata,
+                    this.poolMetrics,
+                    metrics -> metrics.snapshot().waitTimeBucketCounts().get(bucketIndex),
+                    new Tag("le_ms", bound));
+        }
+    }
+
+    private void gauge(String name, String description, String unit, Function<PoolStatistics, Number> extractor) {
+        Metadata metadata = Metadata.builder()
+                .withName(PREFIX + name)
+                .withDescription(description)
+                .withUnit(unit)
+                .build();
+
+        this.metricRegistry.gauge(metadata, this.poolMetrics, metrics -> extractor.apply(metrics.snapshot()));
+    }
+
+    public PoolMetrics getPoolMetrics() {
+        return poolMetrics;
+    }
+}